@@ -0,0 +1,332 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.Random;
+
+/**
+ * Detects and resolves collisions between circular balls whose motion is
+ * stored in a {@code ProjectileSystem}.
+ *
+ * <p>
+ * Collisions are found in two phases. The <i>broad phase</i> uses
+ * <i>sweep and prune</i>: the balls are kept sorted by the left edge of
+ * their bounding boxes, and only pairs of balls whose boxes overlap in x
+ * are examined further. Because the balls move only a little between
+ * ticks, the order from the previous tick is nearly sorted and is fixed
+ * with an insertion sort in close to linear time. The <i>narrow phase</i>
+ * checks whether the two circles actually overlap and, if they are moving
+ * towards each other, applies an impulse along the line joining their
+ * centres. The mass of a ball is taken to be proportional to its area.
+ *
+ * <p>
+ * The collider keeps its scratch arrays between calls to {@code collide},
+ * so no objects are created per tick once the number of balls stops
+ * changing.
+ *
+ */
+public class BallCollider {
+
+	/**
+	 * The coefficient of restitution; 1 is perfectly elastic and 0 is
+	 * perfectly inelastic.
+	 */
+	private final double restitution;
+
+	/**
+	 * The walls that the balls bounce off of, or null if there are no walls.
+	 */
+	private Box2 bounds;
+
+	/**
+	 * The indexes of the balls sorted by the left edge of their bounding boxes.
+	 */
+	private int[] order;
+
+	/**
+	 * The left edge of the bounding box of each ball, indexed by ball.
+	 */
+	private double[] left;
+
+	/**
+	 * Initializes this collider to have the specified coefficient of
+	 * restitution and no walls.
+	 *
+	 * @param restitution the coefficient of restitution
+	 * @throws IllegalArgumentException if restitution is not between 0 and 1
+	 */
+	public BallCollider(double restitution) {
+		if (restitution < 0.0 || restitution > 1.0) {
+			throw new IllegalArgumentException("restitution must be between 0 and 1");
+		}
+		this.restitution = restitution;
+		this.bounds = null;
+		this.order = new int[0];
+		this.left = new double[0];
+	}
+
+	/**
+	 * Sets the walls that the balls bounce off of.
+	 *
+	 * @param bounds the box whose edges are the walls, or null for no walls
+	 */
+	public void setBounds(Box2 bounds) {
+		this.bounds = bounds;
+	}
+
+	/**
+	 * Resolves the collisions between the balls in the specified system,
+	 * and between the balls and the walls. The radius of ball {@code i}
+	 * is {@code radius[i]}. Returns the number of pairs of balls that
+	 * were found to be touching.
+	 *
+	 * @param sys the system holding the positions and velocities of the balls
+	 * @param radius the radii of the balls
+	 * @return the number of pairs of balls that were touching
+	 * @throws IllegalArgumentException if radius has fewer elements than
+	 *         the number of balls in the system, or if the radius of a
+	 *         ball is not positive
+	 */
+	public int collide(ProjectileSystem sys, double[] radius) {
+		final int n = sys.size();
+		if (radius.length < n) {
+			throw new IllegalArgumentException("not enough radii");
+		}
+		for (int i = 0; i < n; i++) {
+			// a ball of radius 0 would have an infinite inverse mass
+			if (!(radius[i] > 0.0)) {
+				throw new IllegalArgumentException("radius must be positive");
+			}
+		}
+		final double[] x = sys.xs();
+		final double[] y = sys.ys();
+		final double[] vx = sys.vxs();
+		final double[] vy = sys.vys();
+
+		if (this.bounds != null) {
+			this.bounce(n, x, y, vx, vy, radius);
+		}
+
+		// broad phase: sort by left edge
+		if (this.order.length != n) {
+			this.order = new int[n];
+			this.left = new double[n];
+			for (int i = 0; i < n; i++) {
+				this.order[i] = i;
+			}
+		}
+		final int[] order = this.order;
+		final double[] left = this.left;
+		for (int i = 0; i < n; i++) {
+			left[i] = x[i] - radius[i];
+		}
+		this.sort(n);
+
+		// sweep: for each ball, examine the balls whose left edge is to the
+		// left of its right edge
+		int contacts = 0;
+		for (int a = 0; a < n; a++) {
+			int i = order[a];
+			double right = x[i] + radius[i];
+			for (int b = a + 1; b < n; b++) {
+				int j = order[b];
+				if (left[j] > right) {
+					break;
+				}
+				if (this.resolve(i, j, x, y, vx, vy, radius)) {
+					contacts++;
+				}
+			}
+		}
+		return contacts;
+	}
+
+	/**
+	 * Sorts the first n elements of order by increasing left edge.
+	 * Uses insertion sort, which is fast when the order is nearly sorted,
+	 * unless that would be too slow.
+	 */
+	private void sort(int n) {
+		final int[] order = this.order;
+		final double[] left = this.left;
+		long moves = 0;
+		final long maxMoves = 8L * n + 64;
+		for (int a = 1; a < n; a++) {
+			int i = order[a];
+			double key = left[i];
+			int b = a - 1;
+			while (b >= 0 && left[order[b]] > key) {
+				order[b + 1] = order[b];
+				b--;
+			}
+			order[b + 1] = i;
+			moves += a - 1 - b;
+			if (moves > maxMoves) {
+				this.quicksort(0, n - 1);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Sorts order[lo..hi] by increasing left edge.
+	 */
+	private void quicksort(int lo, int hi) {
+		final int[] order = this.order;
+		final double[] left = this.left;
+		while (hi - lo > 16) {
+			double pivot = left[order[(lo + hi) >>> 1]];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (left[order[i]] < pivot) {
+					i++;
+				}
+				while (left[order[j]] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int t = order[i];
+					order[i] = order[j];
+					order[j] = t;
+					i++;
+					j--;
+				}
+			}
+			if (j - lo < hi - i) {
+				this.quicksort(lo, j);
+				lo = i;
+			} else {
+				this.quicksort(i, hi);
+				hi = j;
+			}
+		}
+		for (int a = lo + 1; a <= hi; a++) {
+			int i = order[a];
+			double key = left[i];
+			int b = a - 1;
+			while (b >= lo && left[order[b]] > key) {
+				order[b + 1] = order[b];
+				b--;
+			}
+			order[b + 1] = i;
+		}
+	}
+
+	/**
+	 * Narrow phase: if balls i and j overlap then separates them and, if
+	 * they are approaching each other, applies an impulse to both balls.
+	 * Returns true if the balls overlap.
+	 */
+	private boolean resolve(int i, int j, double[] x, double[] y,
+			double[] vx, double[] vy, double[] radius) {
+		double dx = x[j] - x[i];
+		double dy = y[j] - y[i];
+		double r = radius[i] + radius[j];
+		double d2 = dx * dx + dy * dy;
+		if (d2 >= r * r) {
+			return false;
+		}
+		double d = Math.sqrt(d2);
+		double nx;
+		double ny;
+		if (d > 0.0) {
+			nx = dx / d;
+			ny = dy / d;
+		} else {
+			nx = 1.0;
+			ny = 0.0;
+		}
+
+		// inverse masses proportional to 1 / area
+		double wi = 1.0 / (radius[i] * radius[i]);
+		double wj = 1.0 / (radius[j] * radius[j]);
+		double w = wi + wj;
+
+		// push the balls apart so that they just touch
+		double overlap = (r - d) / w;
+		x[i] -= overlap * wi * nx;
+		y[i] -= overlap * wi * ny;
+		x[j] += overlap * wj * nx;
+		y[j] += overlap * wj * ny;
+
+		// velocity of j relative to i along the normal
+		double vn = (vx[j] - vx[i]) * nx + (vy[j] - vy[i]) * ny;
+		if (vn < 0.0) {
+			double impulse = -(1.0 + this.restitution) * vn / w;
+			vx[i] -= impulse * wi * nx;
+			vy[i] -= impulse * wi * ny;
+			vx[j] += impulse * wj * nx;
+			vy[j] += impulse * wj * ny;
+		}
+		return true;
+	}
+
+	/**
+	 * Bounces the balls off of the walls.
+	 */
+	private void bounce(int n, double[] x, double[] y, double[] vx, double[] vy, double[] radius) {
+		final double xmin = this.bounds.xmin();
+		final double xmax = this.bounds.xmax();
+		final double ymin = this.bounds.ymin();
+		final double ymax = this.bounds.ymax();
+		final double e = this.restitution;
+		for (int i = 0; i < n; i++) {
+			double r = radius[i];
+			if (x[i] - r < xmin) {
+				x[i] = xmin + r;
+				if (vx[i] < 0.0) {
+					vx[i] = -e * vx[i];
+				}
+			} else if (x[i] + r > xmax) {
+				x[i] = xmax - r;
+				if (vx[i] > 0.0) {
+					vx[i] = -e * vx[i];
+				}
+			}
+			if (y[i] - r < ymin) {
+				y[i] = ymin + r;
+				if (vy[i] < 0.0) {
+					vy[i] = -e * vy[i];
+				}
+			} else if (y[i] + r > ymax) {
+				y[i] = ymax - r;
+				if (vy[i] > 0.0) {
+					vy[i] = -e * vy[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reports the average time per tick (step plus collisions) for
+	 * scenes of 1,000, 10,000, and 100,000 balls in a box.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final double dt = 1.0 / 60.0;
+		final int ticks = 300;
+		Random rng = new Random(1);
+		for (int n : new int[] {1_000, 10_000, 100_000}) {
+			double side = Math.sqrt(n);
+			ProjectileSystem sys = new ProjectileSystem(n);
+			double[] radius = new double[n];
+			for (int i = 0; i < n; i++) {
+				sys.add(side * rng.nextDouble(), side * rng.nextDouble(),
+						rng.nextGaussian(), rng.nextGaussian());
+				radius[i] = 0.1 + 0.2 * rng.nextDouble();
+			}
+			BallCollider collider = new BallCollider(0.9);
+			collider.setBounds(new Box2(0.0, 0.0, side, side));
+
+			long contacts = 0;
+			long start = System.nanoTime();
+			for (int t = 0; t < ticks; t++) {
+				sys.step(dt);
+				contacts += collider.collide(sys, radius);
+			}
+			double elapsed = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%d balls: %.3f ms per tick (%.1f contacts per tick)%n",
+					n, 1e3 * elapsed / ticks, contacts / (double) ticks);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.awt.Color;
+import java.util.Random;
+
+import princeton.introcs.StdDraw;
+
+/**
+ * A stress scene for {@code BallCollider}: thousands of balls falling
+ * under gravity into a box and colliding with each other and the walls.
+ * The average time spent simulating each frame is printed when the
+ * user types {@code 'q'}.
+ *
+ */
+public class BallPit {
+
+	private static final double SIZE = 100.0;
+
+	private final ProjectileSystem balls;
+	private final double[] radius;
+	private final BallCollider collider;
+
+	/**
+	 * Initializes a scene with the specified number of balls at random
+	 * positions in the upper half of the box.
+	 *
+	 * @param n the number of balls
+	 */
+	public BallPit(int n) {
+		Random rng = new Random(1);
+		this.balls = new ProjectileSystem(n);
+		this.radius = new double[n];
+		for (int i = 0; i < n; i++) {
+			this.balls.add(SIZE * rng.nextDouble(), SIZE * (0.5 + 0.5 * rng.nextDouble()),
+					10.0 * rng.nextGaussian(), 0.0);
+			this.radius[i] = 0.3 + 0.4 * rng.nextDouble();
+		}
+		this.collider = new BallCollider(0.8);
+		this.collider.setBounds(new Box2(0.0, 0.0, SIZE, SIZE));
+	}
+
+	public void run() {
+		StdDraw.setCanvasSize(800, 800);
+		StdDraw.setXscale(0.0, SIZE);
+		StdDraw.setYscale(0.0, SIZE);
+		StdDraw.setPenColor(new Color(0, 0, 255, 128));
+
+		final double dt = 1.0 / 60.0;
+		final int substeps = 4;
+		long simNanos = 0;
+		long frames = 0;
+		while (true) {
+			long start = System.nanoTime();
+			for (int s = 0; s < substeps; s++) {
+				this.balls.step(dt / substeps);
+				this.collider.collide(this.balls, this.radius);
+			}
+			simNanos += System.nanoTime() - start;
+			frames++;
+
+			StdDraw.show(0);
+			StdDraw.clear();
+			for (int i = 0; i < this.balls.size(); i++) {
+				StdDraw.filledCircle(this.balls.x(i), this.balls.y(i), this.radius[i]);
+			}
+			StdDraw.show(0);
+			if (StdDraw.hasNextKeyTyped() && StdDraw.nextKeyTyped() == 'q') {
+				break;
+			}
+		}
+		System.out.printf("%d balls: %.3f ms of simulation per frame%n",
+				this.balls.size(), simNanos / 1e6 / frames);
+	}
+
+	/**
+	 * Runs the scene. The number of balls can be given as a command
+	 * line argument; the default is 5000.
+	 *
+	 * @param args the number of balls (optional)
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		new BallPit(n).run();
+		StdDraw.close();
+	}
+}
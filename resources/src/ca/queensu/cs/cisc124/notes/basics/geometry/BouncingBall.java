@@ -1,14 +1,10 @@
 package ca.queensu.cs.cisc124.notes.basics.geometry;
 
 import java.awt.Color;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-import javax.swing.Timer;
 
 import princeton.introcs.StdDraw;
 
-public class BouncingBall implements ActionListener {
+public class BouncingBall implements SimulationLoop.Simulation {
 
 	static {
 		StdDraw.setCanvasSize(20 * 40, 20 * 40);
@@ -18,14 +14,20 @@ public class BouncingBall implements ActionListener {
 		StdDraw.setPenColor(c);
 	}
 
-	private Timer timer;
+	private SimulationLoop loop;
 	private Projectile ball;
+	private double prevX;
+	private double prevY;
 	private final double radius = 1.0;
 	private static final double X_LEFT = 0.0;
 	private static final double X_RIGHT = 20.0;
 
+	// the ball moves 0.1 simulated seconds for every 30 ms of real time
+	private static final double STEP = 0.03;
+	private static final double TIME_SCALE = 0.1 / STEP;
+
 	public BouncingBall() {
-		this.timer = new Timer(30, this);
+		this.loop = new SimulationLoop(this, STEP, 60.0);
 		this.ball = new Projectile();
 		Point2 p = new Point2();
 		p.set(10.0, 15.0);
@@ -34,35 +36,46 @@ public class BouncingBall implements ActionListener {
 		Vector2 v = new Vector2();
 		v.set(2.3, 0.0);
 		this.ball.setVelocity(v);
+		this.prevX = p.x();
+		this.prevY = p.y();
 	}
 
-	private void drawBall() {
+	private void drawBall(double alpha) {
 		double x = this.ball.getPosition().x();
 		double y = this.ball.getPosition().y();
+		x = this.prevX + alpha * (x - this.prevX);
+		y = this.prevY + alpha * (y - this.prevY);
 		StdDraw.filledCircle(x, y, this.radius);
 	}
 
 	public void run() {
-		this.timer.start();
+		// the loop runs on the calling thread until 'q' is typed
+		this.loop.run();
+	}
 
-		while (true) {
-			StdDraw.show(0);
-			StdDraw.clear();
-			this.drawBall();
-			StdDraw.show(0);
-			if (StdDraw.hasNextKeyTyped()) {
-				char c = StdDraw.nextKeyTyped();
-				if (c == 'q') {
-					this.timer.stop();
-					break;
-				}
+	@Override
+	public void render(double alpha) {
+		StdDraw.show(0);
+		StdDraw.clear();
+		this.drawBall(alpha);
+		StdDraw.show(0);
+	}
+
+	@Override
+	public void handleInput() {
+		if (StdDraw.hasNextKeyTyped()) {
+			char c = StdDraw.nextKeyTyped();
+			if (c == 'q') {
+				this.loop.stop();
 			}
 		}
 	}
 
 	@Override
-	public void actionPerformed(ActionEvent e) {
-		this.ball.move(0.1);
+	public boolean step(double dt) {
+		this.prevX = this.ball.getPosition().x();
+		this.prevY = this.ball.getPosition().y();
+		this.ball.move(TIME_SCALE * dt);
 		if (this.ball.getPosition().y() <= 0.0) {
 			Vector2 v = this.ball.getVelocity();
 			v.y(-v.y());
@@ -74,6 +87,7 @@ public class BouncingBall implements ActionListener {
 			v.x(-v.x());
 			this.ball.setVelocity(v);
 		}
+		return true;
 	}
 
 	/**
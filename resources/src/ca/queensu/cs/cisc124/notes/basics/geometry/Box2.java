@@ -0,0 +1,141 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * An immutable axis-aligned rectangle in 2-dimensions having real coordinates.
+ *
+ * <p>
+ * A box is described by its minimum and maximum x and y coordinates.
+ * Points on the edges of a box are considered to be inside the box.
+ *
+ */
+public final class Box2 {
+
+	/**
+	 * The bounds of this box.
+	 */
+	private final double xmin;
+	private final double ymin;
+	private final double xmax;
+	private final double ymax;
+
+	/**
+	 * Initializes this box to have the specified minimum and maximum
+	 * coordinates.
+	 *
+	 * @param xmin the minimum x coordinate
+	 * @param ymin the minimum y coordinate
+	 * @param xmax the maximum x coordinate
+	 * @param ymax the maximum y coordinate
+	 * @throws IllegalArgumentException if xmin is greater than xmax or
+	 *         ymin is greater than ymax
+	 */
+	public Box2(double xmin, double ymin, double xmax, double ymax) {
+		if (xmin > xmax) {
+			throw new IllegalArgumentException("xmin must be less than or equal to xmax");
+		}
+		if (ymin > ymax) {
+			throw new IllegalArgumentException("ymin must be less than or equal to ymax");
+		}
+		this.xmin = xmin;
+		this.ymin = ymin;
+		this.xmax = xmax;
+		this.ymax = ymax;
+	}
+
+	/**
+	 * Returns the minimum x coordinate of this box.
+	 *
+	 * @return the minimum x coordinate of this box
+	 */
+	public double xmin() {
+		return this.xmin;
+	}
+
+	/**
+	 * Returns the minimum y coordinate of this box.
+	 *
+	 * @return the minimum y coordinate of this box
+	 */
+	public double ymin() {
+		return this.ymin;
+	}
+
+	/**
+	 * Returns the maximum x coordinate of this box.
+	 *
+	 * @return the maximum x coordinate of this box
+	 */
+	public double xmax() {
+		return this.xmax;
+	}
+
+	/**
+	 * Returns the maximum y coordinate of this box.
+	 *
+	 * @return the maximum y coordinate of this box
+	 */
+	public double ymax() {
+		return this.ymax;
+	}
+
+	/**
+	 * Returns the width of this box.
+	 *
+	 * @return the width of this box
+	 */
+	public double width() {
+		return this.xmax - this.xmin;
+	}
+
+	/**
+	 * Returns the height of this box.
+	 *
+	 * @return the height of this box
+	 */
+	public double height() {
+		return this.ymax - this.ymin;
+	}
+
+	/**
+	 * Returns {@code true} if the point {@code (x, y)} is inside this box.
+	 *
+	 * @param x the x coordinate of a point
+	 * @param y the y coordinate of a point
+	 * @return true if the point (x, y) is inside this box, false otherwise
+	 */
+	public boolean contains(double x, double y) {
+		return x >= this.xmin && x <= this.xmax && y >= this.ymin && y <= this.ymax;
+	}
+
+	/**
+	 * Returns {@code true} if the specified point is inside this box.
+	 *
+	 * @param p a point
+	 * @return true if p is inside this box, false otherwise
+	 */
+	public boolean contains(Point2 p) {
+		return this.contains(p.x(), p.y());
+	}
+
+	/**
+	 * Returns {@code true} if this box and the specified box overlap.
+	 *
+	 * @param other a box
+	 * @return true if this box and other overlap, false otherwise
+	 */
+	public boolean intersects(Box2 other) {
+		return this.xmin <= other.xmax && other.xmin <= this.xmax &&
+				this.ymin <= other.ymax && other.ymin <= this.ymax;
+	}
+
+	/**
+	 * Returns a string representation of this box. The string representation
+	 * is the minimum corner followed by the maximum corner of the box.
+	 *
+	 * @return a string representation of this box
+	 */
+	@Override
+	public String toString() {
+		return "[(" + this.xmin + ", " + this.ymin + "), (" + this.xmax + ", " + this.ymax + ")]";
+	}
+}
@@ -0,0 +1,98 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * A field of forces acting on the projectiles in a {@code ProjectileSystem}.
+ *
+ * <p>
+ * A force field computes the acceleration of many projectiles at once
+ * from their positions and velocities. The acceleration of projectile
+ * {@code i} is written to {@code ax[i]} and {@code ay[i]}, so computing
+ * the accelerations does not create any objects.
+ *
+ */
+public interface ForceField {
+
+	/**
+	 * Computes the acceleration of the first {@code n} projectiles at
+	 * time {@code t}, where projectile {@code i} has position
+	 * {@code (x[i], y[i])} and velocity {@code (vx[i], vy[i])}.
+	 *
+	 * @param n the number of projectiles
+	 * @param t the time
+	 * @param x the x coordinates of the positions
+	 * @param y the y coordinates of the positions
+	 * @param vx the x components of the velocities
+	 * @param vy the y components of the velocities
+	 * @param ax the array to store the x components of the accelerations in
+	 * @param ay the array to store the y components of the accelerations in
+	 */
+	void accelerate(int n, double t, double[] x, double[] y, double[] vx, double[] vy,
+			double[] ax, double[] ay);
+
+	/**
+	 * Returns {@code true} if the acceleration computed by this field
+	 * depends on the velocities of the projectiles. Integrators can skip
+	 * predicting velocities, and reuse accelerations computed for the
+	 * same positions and time, for a field that returns {@code false}.
+	 * The default implementation returns {@code true}.
+	 *
+	 * @return true if the acceleration depends on the velocities
+	 */
+	default boolean dependsOnVelocity() {
+		return true;
+	}
+
+	/**
+	 * Returns a field having the same acceleration {@code (gx, gy)}
+	 * everywhere, such as gravity near the surface of the Earth.
+	 *
+	 * @param gx the x component of the acceleration
+	 * @param gy the y component of the acceleration
+	 * @return a uniform force field
+	 */
+	static ForceField uniform(double gx, double gy) {
+		return new ForceField() {
+			@Override
+			public void accelerate(int n, double t, double[] x, double[] y, double[] vx, double[] vy,
+					double[] ax, double[] ay) {
+				for (int i = 0; i < n; i++) {
+					ax[i] = gx;
+					ay[i] = gy;
+				}
+			}
+
+			@Override
+			public boolean dependsOnVelocity() {
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns a field that pulls every projectile towards the point
+	 * {@code (cx, cy)} with an acceleration proportional to its distance
+	 * from the point (an ideal spring with stiffness {@code k} per unit mass).
+	 *
+	 * @param cx the x coordinate of the anchor point
+	 * @param cy the y coordinate of the anchor point
+	 * @param k the stiffness of the spring per unit mass
+	 * @return a spring force field
+	 */
+	static ForceField spring(double cx, double cy, double k) {
+		return new ForceField() {
+			@Override
+			public void accelerate(int n, double t, double[] x, double[] y, double[] vx, double[] vy,
+					double[] ax, double[] ay) {
+				for (int i = 0; i < n; i++) {
+					ax[i] = -k * (x[i] - cx);
+					ay[i] = -k * (y[i] - cy);
+				}
+			}
+
+			@Override
+			public boolean dependsOnVelocity() {
+				return false;
+			}
+		};
+	}
+}
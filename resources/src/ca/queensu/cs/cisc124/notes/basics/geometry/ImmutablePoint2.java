@@ -0,0 +1,198 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * An immutable Cartesian point in 2-dimensions having real coordinates.
+ *
+ * <p>
+ * Unlike {@code Point2}, the coordinates of an {@code ImmutablePoint2}
+ * can never change. Every arithmetic method returns a new point (or
+ * vector) instead of modifying this point. See {@code ImmutableVector2}
+ * for why this can be faster than using the mutable classes.
+ *
+ */
+public final class ImmutablePoint2 {
+
+	/**
+	 * The origin {@code (0.0, 0.0)}.
+	 */
+	public static final ImmutablePoint2 ORIGIN = new ImmutablePoint2(0.0, 0.0);
+
+	/**
+	 * The coordinates of this point.
+	 */
+	private final double x;
+	private final double y;
+
+	/**
+	 * Initializes the coordinates of this point to {@code (x, y)}.
+	 *
+	 * @param x the x value of this point
+	 * @param y the y value of this point
+	 */
+	public ImmutablePoint2(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Returns an immutable point having the same coordinates as
+	 * the specified point.
+	 *
+	 * @param p the point to copy
+	 * @return an immutable point having the same coordinates as {@code p}
+	 */
+	public static ImmutablePoint2 of(Point2 p) {
+		return new ImmutablePoint2(p.x(), p.y());
+	}
+
+	/**
+	 * Returns a new mutable point having the same coordinates as this point.
+	 *
+	 * @return a new mutable point having the same coordinates as this point
+	 */
+	public Point2 toPoint2() {
+		return new Point2(this.x, this.y);
+	}
+
+	/**
+	 * Returns the x coordinate.
+	 *
+	 * @return the x coordinate
+	 */
+	public double x() {
+		return this.x;
+	}
+
+	/**
+	 * Returns the y coordinate.
+	 *
+	 * @return the y coordinate
+	 */
+	public double y() {
+		return this.y;
+	}
+
+	/**
+	 * Returns the point {@code this + v}.
+	 *
+	 * @param v a vector
+	 * @return the point {@code this + v}
+	 */
+	public ImmutablePoint2 plus(ImmutableVector2 v) {
+		return new ImmutablePoint2(this.x + v.x(), this.y + v.y());
+	}
+
+	/**
+	 * Returns the point {@code this - v}.
+	 *
+	 * @param v a vector
+	 * @return the point {@code this - v}
+	 */
+	public ImmutablePoint2 minus(ImmutableVector2 v) {
+		return new ImmutablePoint2(this.x - v.x(), this.y - v.y());
+	}
+
+	/**
+	 * Returns the vector pointing from the specified point
+	 * {@code q} to this point.
+	 *
+	 * @param q a point
+	 * @return the vector pointing from {@code q} to this point
+	 */
+	public ImmutableVector2 from(ImmutablePoint2 q) {
+		return new ImmutableVector2(this.x - q.x, this.y - q.y);
+	}
+
+	/**
+	 * Returns the vector pointing from this point to the
+	 * specified point {@code q}.
+	 *
+	 * @param q a point
+	 * @return the vector pointing from this point to {@code q}
+	 */
+	public ImmutableVector2 to(ImmutablePoint2 q) {
+		return new ImmutableVector2(q.x - this.x, q.y - this.y);
+	}
+
+	/**
+	 * Compares this point to the specified object. The result is
+	 * {@code true} if and only if {@code obj} is an {@code ImmutablePoint2}
+	 * having the same coordinates as this point.
+	 *
+	 * @param obj the object to compare to
+	 * @return true if obj is equal to this point, false otherwise
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ImmutablePoint2)) {
+			return false;
+		}
+		ImmutablePoint2 other = (ImmutablePoint2) obj;
+		return Double.compare(this.x, other.x) == 0 &&
+				Double.compare(this.y, other.y) == 0;
+	}
+
+	/**
+	 * Returns a hash code for this point.
+	 *
+	 * @return a hash code for this point
+	 */
+	@Override
+	public int hashCode() {
+		int result = Double.hashCode(this.x);
+		result = 31 * result + Double.hashCode(this.y);
+		return result;
+	}
+
+	/**
+	 * Returns a string representation of this point. The string
+	 * representation are the coordinates of the point separated by
+	 * a comma and space all inside a pair of parentheses.
+	 *
+	 * @return a string representation of this point
+	 */
+	@Override
+	public String toString() {
+		return "(" + this.x + ", " + this.y + ")";
+	}
+
+	/**
+	 * Compares the time needed to compute a chain of point and vector
+	 * arithmetic using the mutable static methods of {@code Point2} and
+	 * {@code Vector2} and the methods of the immutable classes.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final int n = 20_000_000;
+		final double dt = 1e-6;
+
+		for (int rep = 0; rep < 5; rep++) {
+			Point2 p = new Point2();
+			Vector2 v = new Vector2(1.0, 10.0);
+			Vector2 g = new Vector2(0.0, -9.81);
+			long start = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				p = Point2.add(p, Vector2.add(Vector2.multiply(dt, v), Vector2.multiply(0.5 * dt * dt, g)));
+				v = Vector2.add(v, Vector2.multiply(dt, g));
+			}
+			double mutableTime = (System.nanoTime() - start) / 1e9;
+
+			ImmutablePoint2 q = ORIGIN;
+			ImmutableVector2 w = new ImmutableVector2(1.0, 10.0);
+			ImmutableVector2 h = new ImmutableVector2(0.0, -9.81);
+			start = System.nanoTime();
+			for (int i = 0; i < n; i++) {
+				q = q.plus(w.times(dt).plus(h.times(0.5 * dt * dt)));
+				w = w.plus(h.times(dt));
+			}
+			double immutableTime = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("mutable: %.3f s, immutable: %.3f s   %s %s%n",
+					mutableTime, immutableTime, p, q);
+		}
+	}
+}
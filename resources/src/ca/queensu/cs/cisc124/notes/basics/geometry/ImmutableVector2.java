@@ -0,0 +1,204 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * An immutable vector in 2-dimensional Cartesian space having real coordinates.
+ *
+ * <p>
+ * Unlike {@code Vector2}, the coordinates of an {@code ImmutableVector2}
+ * can never change. Every arithmetic method returns a new vector instead
+ * of modifying this vector. Because the fields are {@code final} and the
+ * objects are never shared, a chain of arithmetic operations whose
+ * intermediate results do not escape a method can usually be
+ * optimized by the JIT compiler so that no objects are actually created.
+ *
+ */
+public final class ImmutableVector2 {
+
+	/**
+	 * The zero vector.
+	 */
+	public static final ImmutableVector2 ZERO = new ImmutableVector2(0.0, 0.0);
+
+	/**
+	 * The coordinates of this vector.
+	 */
+	private final double x;
+	private final double y;
+
+	/**
+	 * Initializes the coordinates of this vector to {@code (x, y)}.
+	 *
+	 * @param x the x value of this vector
+	 * @param y the y value of this vector
+	 */
+	public ImmutableVector2(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Returns an immutable vector having the same coordinates as
+	 * the specified vector.
+	 *
+	 * @param v the vector to copy
+	 * @return an immutable vector having the same coordinates as {@code v}
+	 */
+	public static ImmutableVector2 of(Vector2 v) {
+		return new ImmutableVector2(v.x(), v.y());
+	}
+
+	/**
+	 * Returns a new mutable vector having the same coordinates as this vector.
+	 *
+	 * @return a new mutable vector having the same coordinates as this vector
+	 */
+	public Vector2 toVector2() {
+		return new Vector2(this.x, this.y);
+	}
+
+	/**
+	 * Returns the x coordinate.
+	 *
+	 * @return the x coordinate
+	 */
+	public double x() {
+		return this.x;
+	}
+
+	/**
+	 * Returns the y coordinate.
+	 *
+	 * @return the y coordinate
+	 */
+	public double y() {
+		return this.y;
+	}
+
+	/**
+	 * Returns the vector {@code this + w}.
+	 *
+	 * @param w a vector
+	 * @return the vector {@code this + w}
+	 */
+	public ImmutableVector2 plus(ImmutableVector2 w) {
+		return new ImmutableVector2(this.x + w.x, this.y + w.y);
+	}
+
+	/**
+	 * Returns the vector {@code this - w}.
+	 *
+	 * @param w a vector
+	 * @return the vector {@code this - w}
+	 */
+	public ImmutableVector2 minus(ImmutableVector2 w) {
+		return new ImmutableVector2(this.x - w.x, this.y - w.y);
+	}
+
+	/**
+	 * Returns the vector {@code s * this}.
+	 *
+	 * @param s a scalar
+	 * @return the vector {@code s * this}
+	 */
+	public ImmutableVector2 times(double s) {
+		return new ImmutableVector2(s * this.x, s * this.y);
+	}
+
+	/**
+	 * Returns the vector {@code this / s}.
+	 *
+	 * @param s a scalar
+	 * @return the vector {@code this / s}
+	 * @pre. s != 0.0
+	 * @throws IllegalArgumentException if s == 0.0 is true
+	 */
+	public ImmutableVector2 dividedBy(double s) {
+		if (s == 0.0) {
+			throw new IllegalArgumentException("division by 0.0");
+		}
+		return new ImmutableVector2(this.x / s, this.y / s);
+	}
+
+	/**
+	 * Returns the vector {@code -this}.
+	 *
+	 * @return the vector {@code -this}
+	 */
+	public ImmutableVector2 negated() {
+		return new ImmutableVector2(-this.x, -this.y);
+	}
+
+	/**
+	 * Returns the dot product of this vector and the specified vector.
+	 *
+	 * @param w a vector
+	 * @return the dot product of this vector and {@code w}
+	 */
+	public double dot(ImmutableVector2 w) {
+		return this.x * w.x + this.y * w.y;
+	}
+
+	/**
+	 * Returns the magnitude (length) of this vector without intermediate
+	 * overflow or underflow.
+	 *
+	 * @return the magnitude (length) of this vector
+	 */
+	public double mag() {
+		return Math.hypot(this.x, this.y);
+	}
+
+	/**
+	 * Returns the squared magnitude (squared length) of this vector.
+	 *
+	 * @return the squared magnitude (squared length) of this vector
+	 */
+	public double magSquared() {
+		return this.x * this.x + this.y * this.y;
+	}
+
+	/**
+	 * Compares this vector to the specified object. The result is
+	 * {@code true} if and only if {@code obj} is an {@code ImmutableVector2}
+	 * having the same coordinates as this vector.
+	 *
+	 * @param obj the object to compare to
+	 * @return true if obj is equal to this vector, false otherwise
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ImmutableVector2)) {
+			return false;
+		}
+		ImmutableVector2 other = (ImmutableVector2) obj;
+		return Double.compare(this.x, other.x) == 0 &&
+				Double.compare(this.y, other.y) == 0;
+	}
+
+	/**
+	 * Returns a hash code for this vector.
+	 *
+	 * @return a hash code for this vector
+	 */
+	@Override
+	public int hashCode() {
+		int result = Double.hashCode(this.x);
+		result = 31 * result + Double.hashCode(this.y);
+		return result;
+	}
+
+	/**
+	 * Returns a string representation of this vector. The string
+	 * representation are the coordinates of the vector separated by
+	 * a comma and space all inside a pair of parentheses.
+	 *
+	 * @return a string representation of this vector
+	 */
+	@Override
+	public String toString() {
+		return "(" + this.x + ", " + this.y + ")";
+	}
+}
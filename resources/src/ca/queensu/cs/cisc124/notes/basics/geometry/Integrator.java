@@ -0,0 +1,25 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * A numerical method for advancing the projectiles in a
+ * {@code ProjectileSystem} through time under the influence of
+ * a {@code ForceField}.
+ *
+ * <p>
+ * Integrators keep scratch arrays between calls to {@code step}, so an
+ * integrator should not be shared between threads.
+ *
+ */
+public interface Integrator {
+
+	/**
+	 * Advances every projectile in the specified system from time
+	 * {@code t} to time {@code t + dt}.
+	 *
+	 * @param sys the projectiles to advance
+	 * @param field the forces acting on the projectiles
+	 * @param t the current time
+	 * @param dt the time step
+	 */
+	void step(ProjectileSystem sys, ForceField field, double t, double dt);
+}
@@ -0,0 +1,57 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * Compares the accuracy and speed of the integrators.
+ *
+ * <p>
+ * Every projectile is attached to a spring anchored at the origin and
+ * released from rest at distance 1. The exact solution is
+ * {@code x(t) = cos(t)}, so the error after simulating {@code T} seconds
+ * can be measured directly. For each integrator and time step this
+ * program prints the position error and relative energy drift at time
+ * {@code T}, and the number of projectile-seconds simulated per second
+ * of running time.
+ *
+ */
+public class IntegratorBenchmark {
+
+	private static final int N = 10_000;
+	private static final double T = 100.0;
+
+	/**
+	 * Runs one integrator with one time step and prints the results.
+	 */
+	private static void run(String name, Integrator integrator, double dt) {
+		ForceField spring = ForceField.spring(0.0, 0.0, 1.0);
+		ProjectileSystem sys = new ProjectileSystem(N);
+		for (int i = 0; i < N; i++) {
+			sys.add(1.0, 0.0, 0.0, 0.0);
+		}
+		int steps = (int) Math.round(T / dt);
+		long start = System.nanoTime();
+		double t = 0.0;
+		for (int s = 0; s < steps; s++) {
+			integrator.step(sys, spring, t, dt);
+			t += dt;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		double error = Math.abs(sys.x(0) - Math.cos(t));
+		double energy = 0.5 * (sys.x(0) * sys.x(0) + sys.vx(0) * sys.vx(0));
+		double drift = Math.abs(energy - 0.5) / 0.5;
+		System.out.printf("%-20s dt = %-6s error = %.2e  energy drift = %.2e  %.2e projectile-s/s%n",
+				name, dt, error, drift, N * T / elapsed);
+	}
+
+	public static void main(String[] args) {
+		double[] dts = {0.2, 0.1, 0.05, 0.01};
+		for (int rep = 0; rep < 2; rep++) {
+			for (double dt : dts) {
+				run("semi-implicit Euler", new SemiImplicitEuler(), dt);
+				run("velocity Verlet", new VelocityVerlet(), dt);
+				run("RK4", new RungeKutta4(), dt);
+			}
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,543 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A 2-dimensional k-d tree built once from a fixed set of points.
+ *
+ * <p>
+ * The tree is stored implicitly in arrays: the points are reordered so
+ * that for every range of indexes {@code [lo, hi)} the point at the middle
+ * index {@code mid = (lo + hi) / 2} is the median of the range (by x
+ * coordinate at even depths and by y coordinate at odd depths), the
+ * points in {@code [lo, mid)} are on one side of it, and the points in
+ * {@code [mid + 1, hi)} are on the other. Building the tree takes
+ * O(n log n) time using quickselect and needs no objects other than
+ * the arrays themselves.
+ *
+ * <p>
+ * Each point is identified by its index in the arrays (or collection)
+ * that the tree was built from. Queries return these ids. Queries do not
+ * create any objects, so a tree must not be queried by more than one
+ * thread at a time.
+ *
+ */
+public class KdTree2 {
+
+	/**
+	 * Ranges smaller than this are built sequentially by a parallel build.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * The coordinates of the points, in tree order.
+	 */
+	private final double[] x;
+	private final double[] y;
+
+	/**
+	 * The ids of the points, in tree order.
+	 */
+	private final int[] ids;
+
+	/**
+	 * Scratch space for the k-nearest search.
+	 */
+	private int[] heapIds;
+	private double[] heapDist;
+	private int heapSize;
+
+	/**
+	 * Scratch space for the range and radius searches.
+	 */
+	private int found;
+
+	/**
+	 * Builds a tree containing the points {@code (x[i], y[i])}. The
+	 * point {@code (x[i], y[i])} is given the id {@code i}. The arrays
+	 * are copied and are not modified.
+	 *
+	 * @param x the x coordinates of the points
+	 * @param y the y coordinates of the points
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	public KdTree2(double[] x, double[] y) {
+		this(x, y, null);
+	}
+
+	/**
+	 * Builds a tree containing the points {@code (x[i], y[i])} using the
+	 * threads of the specified pool. The point {@code (x[i], y[i])} is given
+	 * the id {@code i}. The arrays are copied and are not modified.
+	 *
+	 * @param x the x coordinates of the points
+	 * @param y the y coordinates of the points
+	 * @param pool the pool used to build the tree, or {@code null} to build
+	 *             the tree using the calling thread
+	 * @throws IllegalArgumentException if the arrays have different lengths
+	 */
+	public KdTree2(double[] x, double[] y, ForkJoinPool pool) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("array lengths differ");
+		}
+		int n = x.length;
+		this.x = x.clone();
+		this.y = y.clone();
+		this.ids = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.ids[i] = i;
+		}
+		// room for the single point found by nearest(qx, qy)
+		this.heapIds = new int[1];
+		this.heapDist = new double[1];
+		if (pool == null || n < PARALLEL_THRESHOLD) {
+			this.build(0, n, 0);
+		} else {
+			pool.invoke(new BuildTask(this, 0, n, 0));
+		}
+	}
+
+	/**
+	 * Builds a tree containing copies of the specified points. The ids
+	 * of the points are their positions in the iteration order of
+	 * the collection.
+	 *
+	 * @param points the points to store in the tree
+	 */
+	public KdTree2(Collection<? extends Point2> points) {
+		this(xs(points), ys(points));
+	}
+
+	private static double[] xs(Collection<? extends Point2> points) {
+		double[] result = new double[points.size()];
+		int i = 0;
+		for (Point2 p : points) {
+			result[i] = p.x();
+			i++;
+		}
+		return result;
+	}
+
+	private static double[] ys(Collection<? extends Point2> points) {
+		double[] result = new double[points.size()];
+		int i = 0;
+		for (Point2 p : points) {
+			result[i] = p.y();
+			i++;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of points in this tree.
+	 *
+	 * @return the number of points in this tree
+	 */
+	public int size() {
+		return this.x.length;
+	}
+
+	/*
+	 * Building the tree.
+	 */
+
+	/**
+	 * Returns the coordinate of the point at index i along the specified axis.
+	 */
+	private double coord(int i, int axis) {
+		return axis == 0 ? this.x[i] : this.y[i];
+	}
+
+	private void swap(int i, int j) {
+		double t = this.x[i];
+		this.x[i] = this.x[j];
+		this.x[j] = t;
+		t = this.y[i];
+		this.y[i] = this.y[j];
+		this.y[j] = t;
+		int id = this.ids[i];
+		this.ids[i] = this.ids[j];
+		this.ids[j] = id;
+	}
+
+	/**
+	 * Builds the subtree for the points in {@code [lo, hi)} at the
+	 * specified depth.
+	 */
+	private void build(int lo, int hi, int depth) {
+		while (hi - lo > 1) {
+			int mid = (lo + hi) >>> 1;
+			this.select(lo, hi, mid, depth & 1);
+			this.build(lo, mid, depth + 1);
+			lo = mid + 1;
+			depth++;
+		}
+	}
+
+	/**
+	 * Rearranges the points in {@code [lo, hi)} so that the point at index
+	 * {@code k} is the one that would be there if the range were sorted
+	 * along the specified axis, no point before {@code k} is greater, and
+	 * no point after {@code k} is smaller.
+	 */
+	private void select(int lo, int hi, int k, int axis) {
+		hi--;
+		while (hi > lo) {
+			// median of three pivot moved to lo
+			int m = (lo + hi) >>> 1;
+			if (this.coord(m, axis) < this.coord(lo, axis)) {
+				this.swap(m, lo);
+			}
+			if (this.coord(hi, axis) < this.coord(lo, axis)) {
+				this.swap(hi, lo);
+			}
+			if (this.coord(hi, axis) < this.coord(m, axis)) {
+				this.swap(hi, m);
+			}
+			this.swap(lo, m);
+			double pivot = this.coord(lo, axis);
+
+			// Hoare partition
+			int i = lo;
+			int j = hi + 1;
+			while (true) {
+				do {
+					i++;
+				} while (i < hi && this.coord(i, axis) < pivot);
+				do {
+					j--;
+				} while (this.coord(j, axis) > pivot);
+				if (i >= j) {
+					break;
+				}
+				this.swap(i, j);
+			}
+			this.swap(lo, j);
+
+			if (j == k) {
+				return;
+			} else if (j < k) {
+				lo = j + 1;
+			} else {
+				hi = j - 1;
+			}
+		}
+	}
+
+	/**
+	 * Builds the two subtrees of a range in parallel.
+	 */
+	private static class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final KdTree2 tree;
+		private final int lo;
+		private final int hi;
+		private final int depth;
+
+		BuildTask(KdTree2 tree, int lo, int hi, int depth) {
+			this.tree = tree;
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.hi - this.lo < PARALLEL_THRESHOLD) {
+				this.tree.build(this.lo, this.hi, this.depth);
+			} else {
+				int mid = (this.lo + this.hi) >>> 1;
+				this.tree.select(this.lo, this.hi, mid, this.depth & 1);
+				invokeAll(new BuildTask(this.tree, this.lo, mid, this.depth + 1),
+						new BuildTask(this.tree, mid + 1, this.hi, this.depth + 1));
+			}
+		}
+	}
+
+	/*
+	 * Queries.
+	 */
+
+	/**
+	 * Returns the id of the point nearest to {@code (qx, qy)}, or
+	 * {@code -1} if this tree is empty.
+	 *
+	 * @param qx the x coordinate of the query point
+	 * @param qy the y coordinate of the query point
+	 * @return the id of the point nearest to (qx, qy)
+	 */
+	public int nearest(double qx, double qy) {
+		this.heapSize = 0;
+		this.nearest(0, this.x.length, 0, qx, qy, 1);
+		return this.heapSize == 0 ? -1 : this.heapIds[0];
+	}
+
+	/**
+	 * Finds the ids of the {@code out.length} points nearest to
+	 * {@code (qx, qy)}. The ids are stored in {@code out} in order of
+	 * increasing distance. If this tree has fewer than {@code out.length}
+	 * points then the ids of all of the points are stored. Returns the
+	 * number of ids stored.
+	 *
+	 * @param qx the x coordinate of the query point
+	 * @param qy the y coordinate of the query point
+	 * @param out the array to store the ids in
+	 * @return the number of ids stored in out
+	 */
+	public int nearest(double qx, double qy, int[] out) {
+		final int k = out.length;
+		if (k == 0) {
+			return 0;
+		}
+		if (this.heapIds.length < k) {
+			this.heapIds = new int[k];
+			this.heapDist = new double[k];
+		}
+		this.heapSize = 0;
+		this.nearest(0, this.x.length, 0, qx, qy, k);
+
+		// heap sort the results into increasing order of distance
+		int n = this.heapSize;
+		while (n > 1) {
+			n--;
+			this.heapSwap(0, n);
+			this.siftDown(0, n);
+		}
+		System.arraycopy(this.heapIds, 0, out, 0, this.heapSize);
+		return this.heapSize;
+	}
+
+	private void nearest(int lo, int hi, int depth, double qx, double qy, int k) {
+		if (lo >= hi) {
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		double dx = this.x[mid] - qx;
+		double dy = this.y[mid] - qy;
+		this.offer(this.ids[mid], dx * dx + dy * dy, k);
+
+		double diff = (depth & 1) == 0 ? qx - this.x[mid] : qy - this.y[mid];
+		if (diff < 0.0) {
+			this.nearest(lo, mid, depth + 1, qx, qy, k);
+			if (this.heapSize < k || diff * diff < this.heapDist[0]) {
+				this.nearest(mid + 1, hi, depth + 1, qx, qy, k);
+			}
+		} else {
+			this.nearest(mid + 1, hi, depth + 1, qx, qy, k);
+			if (this.heapSize < k || diff * diff < this.heapDist[0]) {
+				this.nearest(lo, mid, depth + 1, qx, qy, k);
+			}
+		}
+	}
+
+	/**
+	 * Adds a point to the max-heap of the k nearest points found so far.
+	 */
+	private void offer(int id, double d2, int k) {
+		if (this.heapSize < k) {
+			int i = this.heapSize;
+			this.heapSize++;
+			this.heapIds[i] = id;
+			this.heapDist[i] = d2;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (this.heapDist[parent] >= this.heapDist[i]) {
+					break;
+				}
+				this.heapSwap(i, parent);
+				i = parent;
+			}
+		} else if (d2 < this.heapDist[0]) {
+			this.heapIds[0] = id;
+			this.heapDist[0] = d2;
+			this.siftDown(0, k);
+		}
+	}
+
+	private void siftDown(int i, int n) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= n) {
+				return;
+			}
+			if (child + 1 < n && this.heapDist[child + 1] > this.heapDist[child]) {
+				child++;
+			}
+			if (this.heapDist[i] >= this.heapDist[child]) {
+				return;
+			}
+			this.heapSwap(i, child);
+			i = child;
+		}
+	}
+
+	private void heapSwap(int i, int j) {
+		int id = this.heapIds[i];
+		this.heapIds[i] = this.heapIds[j];
+		this.heapIds[j] = id;
+		double d = this.heapDist[i];
+		this.heapDist[i] = this.heapDist[j];
+		this.heapDist[j] = d;
+	}
+
+	/**
+	 * Finds the ids of the points inside the specified box. The ids are
+	 * stored in {@code out} (in no particular order) and the number of
+	 * points found is returned. If more than {@code out.length} points are
+	 * found then only the first {@code out.length} are stored, but the
+	 * returned value is still the total number of points found.
+	 *
+	 * @param box the query box
+	 * @param out the array to store the ids in
+	 * @return the number of points inside the box
+	 */
+	public int range(Box2 box, int[] out) {
+		this.found = 0;
+		this.range(0, this.x.length, 0, box.xmin(), box.ymin(), box.xmax(), box.ymax(), out);
+		return this.found;
+	}
+
+	private void range(int lo, int hi, int depth, double xmin, double ymin,
+			double xmax, double ymax, int[] out) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			double px = this.x[mid];
+			double py = this.y[mid];
+			if (px >= xmin && px <= xmax && py >= ymin && py <= ymax) {
+				if (this.found < out.length) {
+					out[this.found] = this.ids[mid];
+				}
+				this.found++;
+			}
+			double p = (depth & 1) == 0 ? px : py;
+			double min = (depth & 1) == 0 ? xmin : ymin;
+			double max = (depth & 1) == 0 ? xmax : ymax;
+			boolean left = min <= p;
+			boolean right = max >= p;
+			depth++;
+			if (left && right) {
+				this.range(lo, mid, depth, xmin, ymin, xmax, ymax, out);
+				lo = mid + 1;
+			} else if (left) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+	}
+
+	/**
+	 * Finds the ids of the points whose distance to {@code (qx, qy)} is
+	 * less than or equal to {@code r}. The ids are stored in {@code out}
+	 * (in no particular order) and the number of points found is returned.
+	 * If more than {@code out.length} points are found then only the first
+	 * {@code out.length} are stored, but the returned value is still the
+	 * total number of points found.
+	 *
+	 * @param qx the x coordinate of the query point
+	 * @param qy the y coordinate of the query point
+	 * @param r the query radius
+	 * @param out the array to store the ids in
+	 * @return the number of points within distance r of (qx, qy)
+	 * @throws IllegalArgumentException if r is negative
+	 */
+	public int radius(double qx, double qy, double r, int[] out) {
+		if (r < 0.0) {
+			throw new IllegalArgumentException("radius negative");
+		}
+		this.found = 0;
+		this.radius(0, this.x.length, 0, qx, qy, r, out);
+		return this.found;
+	}
+
+	private void radius(int lo, int hi, int depth, double qx, double qy, double r, int[] out) {
+		final double r2 = r * r;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			double dx = this.x[mid] - qx;
+			double dy = this.y[mid] - qy;
+			if (dx * dx + dy * dy <= r2) {
+				if (this.found < out.length) {
+					out[this.found] = this.ids[mid];
+				}
+				this.found++;
+			}
+			double diff = (depth & 1) == 0 ? qx - this.x[mid] : qy - this.y[mid];
+			boolean left = diff <= r;
+			boolean right = diff >= -r;
+			depth++;
+			if (left && right) {
+				this.radius(lo, mid, depth, qx, qy, r, out);
+				lo = mid + 1;
+			} else if (left) {
+				hi = mid;
+			} else {
+				lo = mid + 1;
+			}
+		}
+	}
+
+	/**
+	 * Compares the time needed to find nearest neighbours using a tree and
+	 * by checking every point. The number of points can be given as a command
+	 * line argument; the default is 1,000,000 points.
+	 *
+	 * @param args the number of points (optional)
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final int queries = 100;
+		Random rng = new Random(1);
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = rng.nextDouble();
+			y[i] = rng.nextDouble();
+		}
+
+		for (int rep = 0; rep < 3; rep++) {
+			long start = System.nanoTime();
+			KdTree2 tree = new KdTree2(x, y);
+			double buildTime = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			KdTree2 ptree = new KdTree2(x, y, ForkJoinPool.commonPool());
+			double parallelBuildTime = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			long sum = 0;
+			for (int q = 0; q < queries; q++) {
+				sum += tree.nearest(q / (double) queries, 0.5);
+			}
+			double treeTime = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			long bruteSum = 0;
+			for (int q = 0; q < queries; q++) {
+				double qx = q / (double) queries;
+				int best = -1;
+				double bestDist = Double.POSITIVE_INFINITY;
+				for (int i = 0; i < n; i++) {
+					double dx = x[i] - qx;
+					double dy = y[i] - 0.5;
+					double d2 = dx * dx + dy * dy;
+					if (d2 < bestDist) {
+						bestDist = d2;
+						best = i;
+					}
+				}
+				bruteSum += best;
+			}
+			double bruteTime = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("n = %d: build %.0f ms (parallel %.0f ms, size %d), "
+					+ "%d nearest queries: tree %.3f ms, linear scan %.1f ms (%b)%n",
+					n, 1e3 * buildTime, 1e3 * parallelBuildTime, ptree.size(), queries,
+					1e3 * treeTime, 1e3 * bruteTime, sum == bruteSum);
+		}
+	}
+}
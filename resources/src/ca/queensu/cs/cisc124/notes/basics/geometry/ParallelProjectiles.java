@@ -0,0 +1,213 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Utility methods for moving a large number of projectiles using
+ * more than one thread.
+ *
+ * <p>
+ * The projectiles are split into contiguous groups that are moved by
+ * the threads of a {@code ForkJoinPool}. Each projectile is moved
+ * independently of all of the other projectiles, so the results are
+ * exactly the same as moving the projectiles one at a time no matter
+ * how many threads are used. Collections smaller than a threshold
+ * are moved sequentially by the calling thread.
+ *
+ */
+public final class ParallelProjectiles {
+
+	/**
+	 * The default number of projectiles below which moving is
+	 * done sequentially.
+	 */
+	public static final int DEFAULT_THRESHOLD = 8192;
+
+	/**
+	 * Suppress constructor creation by compiler to prevent instantiation.
+	 */
+	private ParallelProjectiles() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Moves every projectile in the specified collection {@code dt} seconds
+	 * using the common fork-join pool and the default threshold.
+	 *
+	 * @param projectiles the projectiles to move
+	 * @param dt the time period over which the projectiles have moved
+	 */
+	public static void move(Collection<? extends Projectile> projectiles, double dt) {
+		ParallelProjectiles.move(ForkJoinPool.commonPool(), projectiles, dt, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Moves every projectile in the specified collection {@code dt} seconds
+	 * using the specified pool. The projectiles are moved sequentially by
+	 * the calling thread if there are fewer than {@code threshold} of them.
+	 *
+	 * @param pool the pool used to run the parallel tasks
+	 * @param projectiles the projectiles to move
+	 * @param dt the time period over which the projectiles have moved
+	 * @param threshold the number of projectiles below which moving
+	 *                  is done sequentially
+	 * @throws IllegalArgumentException if threshold is less than 1
+	 */
+	public static void move(ForkJoinPool pool, Collection<? extends Projectile> projectiles,
+			double dt, int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("threshold must be positive");
+		}
+		List<? extends Projectile> list;
+		if (projectiles instanceof List && projectiles instanceof RandomAccess) {
+			list = (List<? extends Projectile>) projectiles;
+		} else {
+			list = new ArrayList<>(projectiles);
+		}
+		if (list.size() < threshold) {
+			for (Projectile p : list) {
+				p.move(dt);
+			}
+		} else {
+			pool.invoke(new MoveTask(list, 0, list.size(), dt, threshold));
+		}
+	}
+
+	/**
+	 * Moves every projectile in the specified system {@code dt} seconds
+	 * using the specified pool. The system is stepped sequentially by
+	 * the calling thread if it has fewer than {@code threshold} projectiles.
+	 *
+	 * @param pool the pool used to run the parallel tasks
+	 * @param sys the system to step
+	 * @param dt the time period over which the projectiles have moved
+	 * @param threshold the number of projectiles below which stepping
+	 *                  is done sequentially
+	 * @throws IllegalArgumentException if threshold is less than 1
+	 */
+	public static void step(ForkJoinPool pool, ProjectileSystem sys, double dt, int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("threshold must be positive");
+		}
+		if (sys.size() < threshold) {
+			sys.step(dt);
+		} else {
+			pool.invoke(new StepTask(sys, 0, sys.size(), dt, threshold));
+		}
+	}
+
+	/**
+	 * Moves the projectiles in a sublist, splitting the sublist in half
+	 * until it is smaller than the threshold.
+	 */
+	private static class MoveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends Projectile> list;
+		private final int from;
+		private final int to;
+		private final double dt;
+		private final int threshold;
+
+		MoveTask(List<? extends Projectile> list, int from, int to, double dt, int threshold) {
+			this.list = list;
+			this.from = from;
+			this.to = to;
+			this.dt = dt;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.threshold) {
+				for (int i = this.from; i < this.to; i++) {
+					this.list.get(i).move(this.dt);
+				}
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new MoveTask(this.list, this.from, mid, this.dt, this.threshold),
+						new MoveTask(this.list, mid, this.to, this.dt, this.threshold));
+			}
+		}
+	}
+
+	/**
+	 * Steps a range of projectiles in a system, splitting the range in half
+	 * until it is smaller than the threshold.
+	 */
+	private static class StepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ProjectileSystem sys;
+		private final int from;
+		private final int to;
+		private final double dt;
+		private final int threshold;
+
+		StepTask(ProjectileSystem sys, int from, int to, double dt, int threshold) {
+			this.sys = sys;
+			this.from = from;
+			this.to = to;
+			this.dt = dt;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.threshold) {
+				this.sys.step(this.from, this.to, this.dt);
+			} else {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new StepTask(this.sys, this.from, mid, this.dt, this.threshold),
+						new StepTask(this.sys, mid, this.to, this.dt, this.threshold));
+			}
+		}
+	}
+
+	/**
+	 * Reports the throughput of moving one million projectiles using
+	 * 1, 2, 4, ... threads and then the number of available processors.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final int n = 1_000_000;
+		final int steps = 50;
+		final double dt = 0.01;
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+
+		List<Projectile> ps = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			Projectile p = new Projectile();
+			p.setVelocity(new Vector2(1.0, 10.0));
+			ps.add(p);
+		}
+
+		List<Integer> counts = new ArrayList<>();
+		for (int threads = 1; threads < maxThreads; threads *= 2) {
+			counts.add(threads);
+		}
+		counts.add(maxThreads);
+
+		for (int threads : counts) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			for (int rep = 0; rep < 2; rep++) {
+				long start = System.nanoTime();
+				for (int s = 0; s < steps; s++) {
+					ParallelProjectiles.move(pool, ps, dt, DEFAULT_THRESHOLD);
+				}
+				double t = (System.nanoTime() - start) / 1e9;
+				if (rep == 1) {
+					System.out.printf("%3d threads: %.1f million projectile moves per second%n",
+							threads, n * (double) steps / t / 1e6);
+				}
+			}
+			pool.shutdown();
+		}
+	}
+}
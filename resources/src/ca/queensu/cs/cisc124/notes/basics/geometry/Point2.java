@@ -39,7 +39,7 @@ public class Point2 {
      * @param other the point to copy
      */
     public Point2(Point2 other) {
-            this(other.x, other.y);
+            this(other.x(), other.y());
     }
 
 	/**
@@ -142,7 +142,7 @@ public class Point2 {
 	 */
 	public Vector2 from(Point2 q) {
 		Vector2 result = new Vector2();
-		result.set(this.x - q.x, this.y - q.y);
+		result.set(this.x() - q.x(), this.y() - q.y());
 		return result;
 	}
 	
@@ -158,10 +158,28 @@ public class Point2 {
 	 */
 	public Vector2 to(Point2 q) {
 		Vector2 result = new Vector2();
-		result.set(q.x - this.x, q.y - this.y);
+		result.set(q.x() - this.x(), q.y() - this.y());
 		return result;
 	}
 	
+	/**
+	 * Returns the squared distance between this point and the specified
+	 * point {@code q}.
+	 *
+	 * <p>
+	 * Use this method instead of computing {@code p.to(q).mag()} when
+	 * comparing distances; it avoids creating a vector and computing a
+	 * square root.
+	 *
+	 * @param q a point
+	 * @return the squared distance between this point and {@code q}
+	 */
+	public double distanceSquared(Point2 q) {
+		double dx = q.x() - this.x();
+		double dy = q.y() - this.y();
+		return dx * dx + dy * dy;
+	}
+
 	/**
 	 * Multiply this point by a scalar value changing the coordinates of this point.
 	 * 
@@ -225,7 +243,7 @@ public class Point2 {
 	 */
 	public static Point2 add(Point2 p, Vector2 v) {
 		Point2 result = new Point2();
-		result.set(p.x + v.x(), p.y + v.y());
+		result.set(p.x() + v.x(), p.y() + v.y());
 		return result;
 	}
 	
@@ -238,7 +256,7 @@ public class Point2 {
 	 */
 	public static Point2 subtract(Point2 p, Vector2 v) {
 		Point2 result = new Point2();
-		result.set(p.x - v.x(), p.y - v.y());
+		result.set(p.x() - v.x(), p.y() - v.y());
 		return result;
 	}
 	
@@ -251,7 +269,7 @@ public class Point2 {
 	 */
 	public static Point2 multiply(double s, Point2 p) {
 		Point2 result = new Point2();
-		result.set(p.x * s, p.y * s);
+		result.set(p.x() * s, p.y() * s);
 		return result;
 	}
 	
@@ -278,7 +296,7 @@ public class Point2 {
 	 */
 	public static Point2 negate(Point2 p) {
 		Point2 result = new Point2();
-		result.set(-p.x, -p.y);
+		result.set(-p.x(), -p.y());
 		return result;
 	}
 	
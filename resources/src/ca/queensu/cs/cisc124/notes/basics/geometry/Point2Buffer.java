@@ -0,0 +1,374 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of points stored as packed coordinates.
+ *
+ * <p>
+ * A {@code Point2} object needs roughly 32 bytes of memory (an object
+ * header, two {@code double} fields, and padding) plus a reference to
+ * the object. A {@code Point2Buffer} stores the coordinates of its points
+ * in a single {@code double} array in the order
+ * {@code x0, y0, x1, y1, ...} which needs exactly 16 bytes per point
+ * and lets bulk operations run over contiguous memory.
+ *
+ * <p>
+ * Points are accessed by index. {@code get} returns a new {@code Point2}
+ * holding a copy of the coordinates; use a {@code Cursor} to read and
+ * write the coordinates of many points without creating any objects.
+ *
+ */
+public class Point2Buffer {
+
+	/**
+	 * The default capacity of a buffer.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The coordinates of the points, two elements per point.
+	 */
+	private double[] coords;
+
+	/**
+	 * The number of points in this buffer.
+	 */
+	private int size;
+
+	/**
+	 * Initializes this buffer to be empty.
+	 */
+	public Point2Buffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes this buffer to be empty with enough room to store
+	 * {@code capacity} points before needing to grow.
+	 *
+	 * @param capacity the initial capacity of this buffer
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public Point2Buffer(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity negative");
+		}
+		this.coords = new double[2 * capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the number of points in this buffer.
+	 *
+	 * @return the number of points in this buffer
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds the point {@code (x, y)} to the end of this buffer.
+	 *
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @return the index of the new point
+	 */
+	public int add(double x, double y) {
+		if (2 * this.size == this.coords.length) {
+			int n = Math.max(2 * DEFAULT_CAPACITY, 2 * this.coords.length);
+			this.coords = Arrays.copyOf(this.coords, n);
+		}
+		int i = this.size;
+		this.coords[2 * i] = x;
+		this.coords[2 * i + 1] = y;
+		this.size++;
+		return i;
+	}
+
+	/**
+	 * Adds a copy of the specified point to the end of this buffer.
+	 *
+	 * @param p the point to add
+	 * @return the index of the new point
+	 */
+	public int add(Point2 p) {
+		return this.add(p.x(), p.y());
+	}
+
+	/**
+	 * Throws an exception if {@code i} is not the index of a point
+	 * in this buffer.
+	 *
+	 * @param i an index
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	private void checkIndex(int i) {
+		if (i < 0 || i >= this.size) {
+			throw new IndexOutOfBoundsException("index: " + i + ", size: " + this.size);
+		}
+	}
+
+	/**
+	 * Returns the x coordinate of point {@code i}.
+	 *
+	 * @param i the index of a point
+	 * @return the x coordinate of point {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double x(int i) {
+		this.checkIndex(i);
+		return this.coords[2 * i];
+	}
+
+	/**
+	 * Returns the y coordinate of point {@code i}.
+	 *
+	 * @param i the index of a point
+	 * @return the y coordinate of point {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double y(int i) {
+		this.checkIndex(i);
+		return this.coords[2 * i + 1];
+	}
+
+	/**
+	 * Returns a new point equal to point {@code i} of this buffer.
+	 *
+	 * @param i the index of a point
+	 * @return a new point equal to point {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public Point2 get(int i) {
+		this.checkIndex(i);
+		return new Point2(this.coords[2 * i], this.coords[2 * i + 1]);
+	}
+
+	/**
+	 * Sets the coordinates of point {@code i} to {@code (x, y)}.
+	 *
+	 * @param i the index of a point
+	 * @param x the new x coordinate
+	 * @param y the new y coordinate
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public void set(int i, double x, double y) {
+		this.checkIndex(i);
+		this.coords[2 * i] = x;
+		this.coords[2 * i + 1] = y;
+	}
+
+	/**
+	 * Adds the specified vector to every point in this buffer.
+	 *
+	 * @param v the vector to add
+	 */
+	public void translate(Vector2 v) {
+		final double dx = v.x();
+		final double dy = v.y();
+		final double[] c = this.coords;
+		final int n = 2 * this.size;
+		for (int i = 0; i < n; i += 2) {
+			c[i] += dx;
+			c[i + 1] += dy;
+		}
+	}
+
+	/**
+	 * Multiplies the coordinates of every point in this buffer by
+	 * the specified scalar.
+	 *
+	 * @param s the scalar value to multiply the points by
+	 */
+	public void scale(double s) {
+		final double[] c = this.coords;
+		final int n = 2 * this.size;
+		for (int i = 0; i < n; i++) {
+			c[i] *= s;
+		}
+	}
+
+	/**
+	 * Returns the centroid (average position) of the points in this buffer.
+	 *
+	 * @return the centroid of the points in this buffer
+	 * @throws IllegalStateException if this buffer is empty
+	 */
+	public Point2 centroid() {
+		if (this.size == 0) {
+			throw new IllegalStateException("buffer is empty");
+		}
+		final double[] c = this.coords;
+		final int n = 2 * this.size;
+		double sx = 0.0;
+		double sy = 0.0;
+		for (int i = 0; i < n; i += 2) {
+			sx += c[i];
+			sy += c[i + 1];
+		}
+		return new Point2(sx / this.size, sy / this.size);
+	}
+
+	/**
+	 * Returns the smallest axis-aligned box containing every point
+	 * in this buffer.
+	 *
+	 * @return the bounding box of the points in this buffer
+	 * @throws IllegalStateException if this buffer is empty
+	 */
+	public Box2 boundingBox() {
+		if (this.size == 0) {
+			throw new IllegalStateException("buffer is empty");
+		}
+		final double[] c = this.coords;
+		final int n = 2 * this.size;
+		double xmin = c[0];
+		double ymin = c[1];
+		double xmax = xmin;
+		double ymax = ymin;
+		for (int i = 2; i < n; i += 2) {
+			double x = c[i];
+			double y = c[i + 1];
+			if (x < xmin) {
+				xmin = x;
+			} else if (x > xmax) {
+				xmax = x;
+			}
+			if (y < ymin) {
+				ymin = y;
+			} else if (y > ymax) {
+				ymax = y;
+			}
+		}
+		return new Box2(xmin, ymin, xmax, ymax);
+	}
+
+	/**
+	 * Returns a new cursor positioned at point 0 of this buffer.
+	 *
+	 * @return a new cursor for this buffer
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * A movable view of one point in a {@code Point2Buffer}.
+	 *
+	 * <p>
+	 * A cursor lets the caller read and modify the point at the current
+	 * index using methods similar to those of {@code Point2}. Moving the
+	 * cursor to a different point does not create any objects, so
+	 * one cursor can be used to visit every point in the buffer.
+	 */
+	public class Cursor {
+
+		/**
+		 * The index of the point that this cursor is positioned at.
+		 */
+		private int index;
+
+		private Cursor() {
+			this.index = 0;
+		}
+
+		/**
+		 * Returns the index of the point that this cursor is positioned at.
+		 *
+		 * @return the index of the current point
+		 */
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * Moves this cursor to point {@code i}.
+		 *
+		 * @param i the index of a point
+		 * @return a reference to this cursor
+		 * @throws IndexOutOfBoundsException if i is not a valid index
+		 */
+		public Cursor moveTo(int i) {
+			Point2Buffer.this.checkIndex(i);
+			this.index = i;
+			return this;
+		}
+
+		/**
+		 * Returns the x coordinate of the current point.
+		 *
+		 * @return the x coordinate of the current point
+		 */
+		public double x() {
+			return Point2Buffer.this.coords[2 * this.index];
+		}
+
+		/**
+		 * Returns the y coordinate of the current point.
+		 *
+		 * @return the y coordinate of the current point
+		 */
+		public double y() {
+			return Point2Buffer.this.coords[2 * this.index + 1];
+		}
+
+		/**
+		 * Sets the coordinates of the current point.
+		 *
+		 * @param newX the new x coordinate
+		 * @param newY the new y coordinate
+		 * @return a reference to this cursor
+		 */
+		public Cursor set(double newX, double newY) {
+			Point2Buffer.this.coords[2 * this.index] = newX;
+			Point2Buffer.this.coords[2 * this.index + 1] = newY;
+			return this;
+		}
+
+		/**
+		 * Adds a vector to the current point.
+		 *
+		 * @param v the vector to add
+		 * @return a reference to this cursor
+		 */
+		public Cursor add(Vector2 v) {
+			Point2Buffer.this.coords[2 * this.index] += v.x();
+			Point2Buffer.this.coords[2 * this.index + 1] += v.y();
+			return this;
+		}
+
+		/**
+		 * Returns a new point equal to the current point.
+		 *
+		 * @return a new point equal to the current point
+		 */
+		public Point2 toPoint2() {
+			return new Point2(this.x(), this.y());
+		}
+
+		/**
+		 * Returns a string representation of the current point.
+		 *
+		 * @return a string representation of the current point
+		 */
+		@Override
+		public String toString() {
+			return "(" + this.x() + ", " + this.y() + ")";
+		}
+	}
+
+	public static void main(String[] args) {
+		Point2Buffer b = new Point2Buffer();
+		b.add(1.0, 2.0);
+		b.add(-3.0, 4.0);
+		b.add(5.0, -6.0);
+		System.out.println(b.centroid());
+		System.out.println(b.boundingBox());
+		b.translate(new Vector2(1.0, 1.0));
+		Cursor c = b.cursor();
+		for (int i = 0; i < b.size(); i++) {
+			System.out.println(c.moveTo(i));
+		}
+	}
+}
@@ -27,6 +27,18 @@ public class Projectile {
 		this.pos = new Point2();
 		this.vel = new Vector2();
 	}
+
+	/**
+	 * Initialize this projectile to use the specified position and
+	 * velocity objects (not copies of them).
+	 *
+	 * @param pos the position of this projectile
+	 * @param vel the velocity of this projectile
+	 */
+	Projectile(Point2 pos, Vector2 vel) {
+		this.pos = pos;
+		this.vel = vel;
+	}
 	
 	/**
 	 * Returns a reference to the position of this projectile.
@@ -0,0 +1,565 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A collection of projectiles that are all moved together.
+ *
+ * <p>
+ * Unlike {@code Projectile}, which stores its position and velocity as
+ * {@code Point2} and {@code Vector2} objects, this class stores the
+ * coordinates of every projectile in parallel arrays of {@code double}
+ * values (a so-called <i>structure of arrays</i>). Moving all of the
+ * projectiles is a single loop over the arrays that does not create
+ * any objects, which is much faster than calling {@code Projectile.move}
+ * on a large number of separate projectile objects.
+ *
+ * <p>
+ * Each projectile in the system is identified by its index, which is
+ * the value returned by {@code add} when the projectile was added. Code
+ * that expects a {@code Projectile} can use {@code view} to obtain a
+ * {@code Projectile} that reads and writes the state stored in this system.
+ *
+ */
+public class ProjectileSystem {
+
+	/**
+	 * The default acceleration due to gravity (in the y direction).
+	 */
+	public static final double GRAVITY = -9.81;
+
+	/**
+	 * The default capacity of a system.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The positions of the projectiles.
+	 */
+	private double[] x;
+	private double[] y;
+
+	/**
+	 * The velocities of the projectiles.
+	 */
+	private double[] vx;
+	private double[] vy;
+
+	/**
+	 * The number of projectiles in this system.
+	 */
+	private int size;
+
+	/**
+	 * The acceleration acting on every projectile in this system.
+	 */
+	private double gx;
+	private double gy;
+
+	/**
+	 * Initializes this system to have no projectiles and the
+	 * default acceleration due to gravity.
+	 */
+	public ProjectileSystem() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes this system to have no projectiles, the default
+	 * acceleration due to gravity, and enough room to store
+	 * {@code capacity} projectiles before needing to grow.
+	 *
+	 * @param capacity the initial capacity of this system
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public ProjectileSystem(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity negative");
+		}
+		this.x = new double[capacity];
+		this.y = new double[capacity];
+		this.vx = new double[capacity];
+		this.vy = new double[capacity];
+		this.size = 0;
+		this.gx = 0.0;
+		this.gy = GRAVITY;
+	}
+
+	/**
+	 * Returns the number of projectiles in this system.
+	 *
+	 * @return the number of projectiles in this system
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the acceleration acting on every projectile in this system.
+	 *
+	 * @return the acceleration acting on every projectile in this system
+	 */
+	public Vector2 getGravity() {
+		return new Vector2(this.gx, this.gy);
+	}
+
+	/**
+	 * Sets the acceleration acting on every projectile in this system.
+	 *
+	 * @param g the new acceleration
+	 */
+	public void setGravity(Vector2 g) {
+		this.gx = g.x();
+		this.gy = g.y();
+	}
+
+	/**
+	 * Adds a projectile having the specified position and velocity to
+	 * this system. Returns the index of the new projectile.
+	 *
+	 * @param x the x coordinate of the position
+	 * @param y the y coordinate of the position
+	 * @param vx the x component of the velocity
+	 * @param vy the y component of the velocity
+	 * @return the index of the new projectile
+	 */
+	public int add(double x, double y, double vx, double vy) {
+		if (this.size == this.x.length) {
+			this.grow();
+		}
+		int i = this.size;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.size++;
+		return i;
+	}
+
+	/**
+	 * Adds a projectile to this system by copying the position and velocity
+	 * of the specified projectile. Returns the index of the new projectile.
+	 *
+	 * @param p the projectile to copy
+	 * @return the index of the new projectile
+	 */
+	public int add(Projectile p) {
+		Point2 pos = p.getPosition();
+		Vector2 vel = p.getVelocity();
+		return this.add(pos.x(), pos.y(), vel.x(), vel.y());
+	}
+
+	/**
+	 * Doubles the capacity of this system.
+	 */
+	private void grow() {
+		int n = Math.max(DEFAULT_CAPACITY, 2 * this.x.length);
+		this.x = Arrays.copyOf(this.x, n);
+		this.y = Arrays.copyOf(this.y, n);
+		this.vx = Arrays.copyOf(this.vx, n);
+		this.vy = Arrays.copyOf(this.vy, n);
+	}
+
+	/**
+	 * Throws an exception if {@code i} is not the index of a projectile
+	 * in this system.
+	 *
+	 * @param i an index
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	private void checkIndex(int i) {
+		if (i < 0 || i >= this.size) {
+			throw new IndexOutOfBoundsException("index: " + i + ", size: " + this.size);
+		}
+	}
+
+	/**
+	 * Returns the x coordinate of the position of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @return the x coordinate of the position of projectile {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double x(int i) {
+		this.checkIndex(i);
+		return this.x[i];
+	}
+
+	/**
+	 * Returns the y coordinate of the position of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @return the y coordinate of the position of projectile {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double y(int i) {
+		this.checkIndex(i);
+		return this.y[i];
+	}
+
+	/**
+	 * Returns the x component of the velocity of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @return the x component of the velocity of projectile {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double vx(int i) {
+		this.checkIndex(i);
+		return this.vx[i];
+	}
+
+	/**
+	 * Returns the y component of the velocity of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @return the y component of the velocity of projectile {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public double vy(int i) {
+		this.checkIndex(i);
+		return this.vy[i];
+	}
+
+	/**
+	 * Sets the position of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @param x the new x coordinate of the position
+	 * @param y the new y coordinate of the position
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public void setPosition(int i, double x, double y) {
+		this.checkIndex(i);
+		this.x[i] = x;
+		this.y[i] = y;
+	}
+
+	/**
+	 * Sets the velocity of projectile {@code i}.
+	 *
+	 * @param i the index of a projectile
+	 * @param vx the new x component of the velocity
+	 * @param vy the new y component of the velocity
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public void setVelocity(int i, double vx, double vy) {
+		this.checkIndex(i);
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+	}
+
+	/*
+	 * Direct access to the coordinate arrays for other classes in this
+	 * package. Only the first size() elements are meaningful, and the
+	 * arrays are replaced when the system grows.
+	 */
+
+	double[] xs() {
+		return this.x;
+	}
+
+	double[] ys() {
+		return this.y;
+	}
+
+	double[] vxs() {
+		return this.vx;
+	}
+
+	double[] vys() {
+		return this.vy;
+	}
+
+	/**
+	 * Updates the positions and velocities of every projectile in this
+	 * system after the projectiles have moved {@code dt} seconds. The
+	 * update is the same as the one performed by {@code Projectile.move}.
+	 *
+	 * @param dt the time period over which the projectiles have moved
+	 */
+	public void step(double dt) {
+		this.step(0, this.size, dt);
+	}
+
+	/**
+	 * Updates the positions and velocities of the projectiles having
+	 * indexes {@code from} (inclusive) to {@code to} (exclusive).
+	 *
+	 * @param from the first index to update
+	 * @param to one past the last index to update
+	 * @param dt the time period over which the projectiles have moved
+	 */
+	void step(int from, int to, double dt) {
+		final double dgx = dt * this.gx;
+		final double dgy = dt * this.gy;
+		final double hgx = 0.5 * dt * dgx;
+		final double hgy = 0.5 * dt * dgy;
+		final double[] x = this.x;
+		final double[] y = this.y;
+		final double[] vx = this.vx;
+		final double[] vy = this.vy;
+		for (int i = from; i < to; i++) {
+			x[i] += dt * vx[i] + hgx;
+			y[i] += dt * vy[i] + hgy;
+			vx[i] += dgx;
+			vy[i] += dgy;
+		}
+	}
+
+	/**
+	 * Returns a {@code Projectile} that reads and writes the state of
+	 * projectile {@code i} in this system.
+	 *
+	 * <p>
+	 * The position and velocity returned by the view's {@code getPosition}
+	 * and {@code getVelocity} are references, as for any {@code Projectile}:
+	 * they read and write the coordinates stored in this system, so changing
+	 * them changes the projectile, and they see every later change made by
+	 * {@code step}. {@code setPosition} and {@code setVelocity} copy the
+	 * coordinates of their argument into this system and return a new
+	 * object holding the old coordinates.
+	 *
+	 * @param i the index of a projectile
+	 * @return a view of projectile {@code i}
+	 * @throws IndexOutOfBoundsException if i is not a valid index
+	 */
+	public Projectile view(int i) {
+		this.checkIndex(i);
+		return new View(this, i);
+	}
+
+	/**
+	 * A {@code Projectile} whose state is stored in a {@code ProjectileSystem}.
+	 */
+	private static class View extends Projectile {
+
+		private final ProjectileSystem sys;
+		private final int index;
+
+		View(ProjectileSystem sys, int index) {
+			super(new SystemPoint(sys, index), new SystemVector(sys, index));
+			this.sys = sys;
+			this.index = index;
+		}
+
+		@Override
+		public Point2 setPosition(Point2 p) {
+			Point2 oldPos = new Point2(this.sys.x[this.index], this.sys.y[this.index]);
+			this.sys.setPosition(this.index, p.x(), p.y());
+			return oldPos;
+		}
+
+		@Override
+		public Vector2 setVelocity(Vector2 v) {
+			Vector2 oldVel = new Vector2(this.sys.vx[this.index], this.sys.vy[this.index]);
+			this.sys.setVelocity(this.index, v.x(), v.y());
+			return oldVel;
+		}
+
+		@Override
+		public void move(double dt) {
+			this.sys.step(this.index, this.index + 1, dt);
+		}
+	}
+
+	/**
+	 * A {@code Point2} whose coordinates are the position of a projectile
+	 * in a {@code ProjectileSystem}. The accessors and the methods that
+	 * change the coordinates read and write the arrays of the system
+	 * instead of the fields of {@code Point2}; the other methods of
+	 * {@code Point2} go through the accessors.
+	 */
+	private static final class SystemPoint extends Point2 {
+
+		private final ProjectileSystem sys;
+		private final int index;
+
+		SystemPoint(ProjectileSystem sys, int index) {
+			this.sys = sys;
+			this.index = index;
+		}
+
+		@Override
+		public double x() {
+			return this.sys.x[this.index];
+		}
+
+		@Override
+		public double y() {
+			return this.sys.y[this.index];
+		}
+
+		@Override
+		public Point2 x(double newX) {
+			this.sys.x[this.index] = newX;
+			return this;
+		}
+
+		@Override
+		public Point2 y(double newY) {
+			this.sys.y[this.index] = newY;
+			return this;
+		}
+
+		@Override
+		public Point2 set(double newX, double newY) {
+			this.sys.x[this.index] = newX;
+			this.sys.y[this.index] = newY;
+			return this;
+		}
+
+		@Override
+		public Point2 add(Vector2 v) {
+			return this.set(this.x() + v.x(), this.y() + v.y());
+		}
+
+		@Override
+		public Point2 subtract(Vector2 v) {
+			return this.set(this.x() - v.x(), this.y() - v.y());
+		}
+
+		@Override
+		public Point2 multiply(double s) {
+			return this.set(this.x() * s, this.y() * s);
+		}
+
+		@Override
+		public Point2 divide(double s) {
+			if (s == 0.0) {
+				throw new IllegalArgumentException("division by 0.0");
+			}
+			return this.set(this.x() / s, this.y() / s);
+		}
+
+		@Override
+		public Point2 negate() {
+			return this.set(-this.x(), -this.y());
+		}
+
+		@Override
+		public String toString() {
+			return new Point2(this.x(), this.y()).toString();
+		}
+	}
+
+	/**
+	 * A {@code Vector2} whose coordinates are the velocity of a projectile
+	 * in a {@code ProjectileSystem}. The accessors and the methods that
+	 * change the coordinates read and write the arrays of the system
+	 * instead of the fields of {@code Vector2}; the other methods of
+	 * {@code Vector2} go through the accessors.
+	 */
+	private static final class SystemVector extends Vector2 {
+
+		private final ProjectileSystem sys;
+		private final int index;
+
+		SystemVector(ProjectileSystem sys, int index) {
+			this.sys = sys;
+			this.index = index;
+		}
+
+		@Override
+		public double x() {
+			return this.sys.vx[this.index];
+		}
+
+		@Override
+		public double y() {
+			return this.sys.vy[this.index];
+		}
+
+		@Override
+		public Vector2 x(double newX) {
+			this.sys.vx[this.index] = newX;
+			return this;
+		}
+
+		@Override
+		public Vector2 y(double newY) {
+			this.sys.vy[this.index] = newY;
+			return this;
+		}
+
+		@Override
+		public Vector2 set(double newX, double newY) {
+			this.sys.vx[this.index] = newX;
+			this.sys.vy[this.index] = newY;
+			return this;
+		}
+
+		@Override
+		public Vector2 add(Vector2 w) {
+			return this.set(this.x() + w.x(), this.y() + w.y());
+		}
+
+		@Override
+		public Vector2 subtract(Vector2 w) {
+			return this.set(this.x() - w.x(), this.y() - w.y());
+		}
+
+		@Override
+		public Vector2 multiply(double s) {
+			return this.set(this.x() * s, this.y() * s);
+		}
+
+		@Override
+		public Vector2 divide(double s) {
+			if (s == 0.0) {
+				throw new IllegalArgumentException("division by 0.0");
+			}
+			return this.set(this.x() / s, this.y() / s);
+		}
+
+		@Override
+		public Vector2 negate() {
+			return this.set(-this.x(), -this.y());
+		}
+
+		@Override
+		public String toString() {
+			return new Vector2(this.x(), this.y()).toString();
+		}
+	}
+
+	/**
+	 * Compares the time needed to move one million projectiles using
+	 * {@code Projectile.move} and {@code ProjectileSystem.step}.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final int n = 1_000_000;
+		final int steps = 100;
+		final double dt = 0.01;
+
+		Projectile[] ps = new Projectile[n];
+		ProjectileSystem sys = new ProjectileSystem(n);
+		for (int i = 0; i < n; i++) {
+			ps[i] = new Projectile();
+			ps[i].setVelocity(new Vector2(1.0, 10.0));
+			sys.add(ps[i]);
+		}
+
+		for (int rep = 0; rep < 3; rep++) {
+			long start = System.nanoTime();
+			for (int s = 0; s < steps; s++) {
+				for (Projectile p : ps) {
+					p.move(dt);
+				}
+			}
+			double objTime = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			for (int s = 0; s < steps; s++) {
+				sys.step(dt);
+			}
+			double soaTime = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("Projectile.move: %.3f s, ProjectileSystem.step: %.3f s, speedup: %.1fx%n",
+					objTime, soaTime, objTime / soaTime);
+		}
+		System.out.println(ps[0].getPosition() + " " + sys.view(0).getPosition());
+	}
+}
@@ -0,0 +1,118 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * The classical fourth order Runge-Kutta method. It needs four
+ * evaluations of the force field per step and has fourth order accuracy,
+ * so it allows much larger time steps than the lower order methods when
+ * the forces change smoothly.
+ *
+ */
+public class RungeKutta4 implements Integrator {
+
+	/**
+	 * The intermediate positions and velocities.
+	 */
+	private double[] tx = new double[0];
+	private double[] ty = new double[0];
+	private double[] tvx = new double[0];
+	private double[] tvy = new double[0];
+
+	/**
+	 * The acceleration at the current stage.
+	 */
+	private double[] ax = new double[0];
+	private double[] ay = new double[0];
+
+	/**
+	 * The weighted sums of the stage derivatives.
+	 */
+	private double[] sx = new double[0];
+	private double[] sy = new double[0];
+	private double[] svx = new double[0];
+	private double[] svy = new double[0];
+
+	private void ensureCapacity(int n) {
+		if (this.tx.length < n) {
+			this.tx = new double[n];
+			this.ty = new double[n];
+			this.tvx = new double[n];
+			this.tvy = new double[n];
+			this.ax = new double[n];
+			this.ay = new double[n];
+			this.sx = new double[n];
+			this.sy = new double[n];
+			this.svx = new double[n];
+			this.svy = new double[n];
+		}
+	}
+
+	@Override
+	public void step(ProjectileSystem sys, ForceField field, double t, double dt) {
+		final int n = sys.size();
+		final double[] x = sys.xs();
+		final double[] y = sys.ys();
+		final double[] vx = sys.vxs();
+		final double[] vy = sys.vys();
+		this.ensureCapacity(n);
+		final double[] tx = this.tx;
+		final double[] ty = this.ty;
+		final double[] tvx = this.tvx;
+		final double[] tvy = this.tvy;
+		final double[] ax = this.ax;
+		final double[] ay = this.ay;
+		final double[] sx = this.sx;
+		final double[] sy = this.sy;
+		final double[] svx = this.svx;
+		final double[] svy = this.svy;
+		final double h = 0.5 * dt;
+
+		// k1 at the start of the step
+		field.accelerate(n, t, x, y, vx, vy, ax, ay);
+		for (int i = 0; i < n; i++) {
+			sx[i] = vx[i];
+			sy[i] = vy[i];
+			svx[i] = ax[i];
+			svy[i] = ay[i];
+			tx[i] = x[i] + h * vx[i];
+			ty[i] = y[i] + h * vy[i];
+			tvx[i] = vx[i] + h * ax[i];
+			tvy[i] = vy[i] + h * ay[i];
+		}
+
+		// k2 at the midpoint using k1
+		field.accelerate(n, t + h, tx, ty, tvx, tvy, ax, ay);
+		for (int i = 0; i < n; i++) {
+			sx[i] += 2.0 * tvx[i];
+			sy[i] += 2.0 * tvy[i];
+			svx[i] += 2.0 * ax[i];
+			svy[i] += 2.0 * ay[i];
+			tx[i] = x[i] + h * tvx[i];
+			ty[i] = y[i] + h * tvy[i];
+			tvx[i] = vx[i] + h * ax[i];
+			tvy[i] = vy[i] + h * ay[i];
+		}
+
+		// k3 at the midpoint using k2
+		field.accelerate(n, t + h, tx, ty, tvx, tvy, ax, ay);
+		for (int i = 0; i < n; i++) {
+			sx[i] += 2.0 * tvx[i];
+			sy[i] += 2.0 * tvy[i];
+			svx[i] += 2.0 * ax[i];
+			svy[i] += 2.0 * ay[i];
+			tx[i] = x[i] + dt * tvx[i];
+			ty[i] = y[i] + dt * tvy[i];
+			tvx[i] = vx[i] + dt * ax[i];
+			tvy[i] = vy[i] + dt * ay[i];
+		}
+
+		// k4 at the end of the step using k3
+		field.accelerate(n, t + dt, tx, ty, tvx, tvy, ax, ay);
+		final double w = dt / 6.0;
+		for (int i = 0; i < n; i++) {
+			x[i] += w * (sx[i] + tvx[i]);
+			y[i] += w * (sy[i] + tvy[i]);
+			vx[i] += w * (svx[i] + ax[i]);
+			vy[i] += w * (svy[i] + ay[i]);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * The semi-implicit (symplectic) Euler method. The velocity is updated
+ * using the current acceleration and then the position is updated using
+ * the new velocity. It needs one evaluation of the force field per step
+ * and has first order accuracy, but unlike the ordinary Euler method the
+ * energy of an oscillating system does not grow without bound.
+ *
+ */
+public class SemiImplicitEuler implements Integrator {
+
+	private double[] ax = new double[0];
+	private double[] ay = new double[0];
+
+	@Override
+	public void step(ProjectileSystem sys, ForceField field, double t, double dt) {
+		final int n = sys.size();
+		final double[] x = sys.xs();
+		final double[] y = sys.ys();
+		final double[] vx = sys.vxs();
+		final double[] vy = sys.vys();
+		if (this.ax.length < n) {
+			this.ax = new double[n];
+			this.ay = new double[n];
+		}
+		final double[] ax = this.ax;
+		final double[] ay = this.ay;
+		field.accelerate(n, t, x, y, vx, vy, ax, ay);
+		for (int i = 0; i < n; i++) {
+			vx[i] += dt * ax[i];
+			vy[i] += dt * ay[i];
+			x[i] += dt * vx[i];
+			y[i] += dt * vy[i];
+		}
+	}
+}
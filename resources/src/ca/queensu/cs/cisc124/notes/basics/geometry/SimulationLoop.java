@@ -0,0 +1,201 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A loop that advances a simulation using a fixed time step and draws
+ * it at a capped frame rate.
+ *
+ * <p>
+ * Each frame, the loop measures how much real time has passed and adds
+ * it to an <i>accumulator</i>. The simulation is then stepped forward
+ * by the fixed time step {@code dt} as many times as fit into the
+ * accumulator, and the remainder is carried over to the next frame.
+ * Because every step uses the same {@code dt}, the simulation produces
+ * the same results no matter how long drawing takes. The fraction of a
+ * step left in the accumulator is passed to {@code render} so that the
+ * drawing can interpolate between the previous and current states.
+ *
+ * <p>
+ * Between frames the loop thread sleeps instead of spinning. A frame is
+ * only drawn if at least one step reported that the simulation changed,
+ * so a static scene uses almost no processor time. Input is handled at
+ * the start of every frame, whether or not the frame is drawn.
+ *
+ */
+public class SimulationLoop implements Runnable {
+
+	/**
+	 * A simulation that can be run by a {@code SimulationLoop}.
+	 */
+	public interface Simulation {
+
+		/**
+		 * Handles user input, for example by reading the keys typed since
+		 * the last frame. Called on the loop thread at the start of every
+		 * frame, before the simulation is stepped, even if the frame is
+		 * not drawn. The default implementation does nothing.
+		 */
+		default void handleInput() {
+		}
+
+		/**
+		 * Advances the simulation by {@code dt} seconds. Returns
+		 * {@code true} if the state of the simulation changed.
+		 *
+		 * @param dt the time step in seconds
+		 * @return true if the state of the simulation changed
+		 */
+		boolean step(double dt);
+
+		/**
+		 * Draws the simulation. {@code alpha} is the fraction of a time
+		 * step that has elapsed since the last call to {@code step}; it
+		 * is between 0 (inclusive) and 1 (exclusive).
+		 *
+		 * @param alpha the fraction of a time step since the last step
+		 */
+		void render(double alpha);
+	}
+
+	/**
+	 * The largest number of steps taken in one frame. If the loop falls
+	 * further behind than this (for example, because drawing stalled) then
+	 * the extra time is dropped instead of being caught up.
+	 */
+	private static final int MAX_STEPS_PER_FRAME = 16;
+
+	private final Simulation sim;
+	private final double dt;
+	private final long stepNanos;
+	private final long frameNanos;
+
+	private volatile boolean running;
+	private Thread thread;
+
+	/**
+	 * Initializes a loop that steps the specified simulation by {@code dt}
+	 * seconds at a time and draws it at most {@code maxFps} times per second.
+	 *
+	 * @param sim the simulation to run
+	 * @param dt the time step in seconds
+	 * @param maxFps the maximum number of frames drawn per second
+	 * @throws IllegalArgumentException if dt or maxFps is not positive
+	 */
+	public SimulationLoop(Simulation sim, double dt, double maxFps) {
+		if (!(dt > 0.0)) {
+			throw new IllegalArgumentException("dt must be positive");
+		}
+		if (!(maxFps > 0.0)) {
+			throw new IllegalArgumentException("maxFps must be positive");
+		}
+		this.sim = sim;
+		this.dt = dt;
+		this.stepNanos = Math.max(1L, Math.round(dt * 1e9));
+		this.frameNanos = Math.max(1L, Math.round(1e9 / maxFps));
+		this.running = false;
+		this.thread = null;
+	}
+
+	/**
+	 * Starts running this loop on a new thread. Does nothing if this loop
+	 * is already running.
+	 */
+	public synchronized void start() {
+		if (this.thread == null && !this.running) {
+			// set here, not by the new thread, so that a stop() issued
+			// before the new thread gets going is not lost
+			this.running = true;
+			this.thread = new Thread(this::runStarted, "simulation");
+			this.thread.start();
+		}
+	}
+
+	/**
+	 * Runs this loop on the thread created by {@code start}, and forgets
+	 * the thread when the loop stops.
+	 */
+	private void runStarted() {
+		try {
+			this.loop();
+		} finally {
+			synchronized (this) {
+				this.thread = null;
+			}
+		}
+	}
+
+	/**
+	 * Asks this loop to stop after the current frame. This method can be
+	 * called from any thread, including from the simulation itself.
+	 */
+	public void stop() {
+		this.running = false;
+	}
+
+	/**
+	 * Waits for the thread started by {@code start} to finish.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public void join() throws InterruptedException {
+		Thread t;
+		synchronized (this) {
+			t = this.thread;
+		}
+		if (t != null) {
+			t.join();
+		}
+	}
+
+	/**
+	 * Runs this loop on the calling thread until {@code stop} is called.
+	 */
+	@Override
+	public void run() {
+		this.running = true;
+		this.loop();
+	}
+
+	/**
+	 * Steps and draws the simulation until {@code running} is cleared.
+	 */
+	private void loop() {
+		long prev = System.nanoTime();
+		long nextFrame = prev;
+		long acc = 0;
+		boolean changed = true;
+		while (this.running) {
+			long now = System.nanoTime();
+			acc += now - prev;
+			prev = now;
+
+			this.sim.handleInput();
+			int steps = 0;
+			while (acc >= this.stepNanos) {
+				if (steps == MAX_STEPS_PER_FRAME) {
+					acc = 0;
+					break;
+				}
+				changed |= this.sim.step(this.dt);
+				acc -= this.stepNanos;
+				steps++;
+			}
+			if (changed) {
+				this.sim.render((double) acc / this.stepNanos);
+				changed = false;
+			}
+
+			// sleep until the next frame
+			nextFrame += this.frameNanos;
+			long wait = nextFrame - System.nanoTime();
+			if (wait < 0) {
+				nextFrame -= wait;
+			}
+			while (wait > 0 && this.running) {
+				LockSupport.parkNanos(this, wait);
+				wait = nextFrame - System.nanoTime();
+			}
+		}
+	}
+}
@@ -0,0 +1,670 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A uniform grid of square cells used to quickly find the points that
+ * are near a query point.
+ *
+ * <p>
+ * Each point stored in the grid is identified by an {@code int} id
+ * that is returned when the point is inserted. The grid is designed for
+ * scenes where most points move every frame: inserting, removing, and
+ * moving a point only update the stored coordinates, and the cell index
+ * is rebuilt in linear time (using a counting sort) the next time the
+ * grid is queried. A whole frame's worth of points can also be loaded at
+ * once from arrays of coordinates using {@code build}.
+ *
+ * <p>
+ * The grid covers the entire plane; cells are mapped to a fixed number
+ * of buckets using a hash of the cell coordinates, so the memory used
+ * depends only on the number of points and not on how far apart they are.
+ * For best performance the cell size should be close to the typical
+ * query radius.
+ *
+ * <p>
+ * Queries do not create any objects, so a grid must not be queried
+ * by more than one thread at a time.
+ *
+ */
+public class SpatialHashGrid {
+
+	/**
+	 * The largest magnitude of a cell coordinate.
+	 */
+	private static final int CELL_LIMIT = 1 << 29;
+
+	/**
+	 * The side length of a cell.
+	 */
+	private final double cellSize;
+
+	/**
+	 * The reciprocal of the cell size.
+	 */
+	private final double invCellSize;
+
+	/**
+	 * The coordinates of the points, indexed by id.
+	 */
+	private double[] x;
+	private double[] y;
+
+	/**
+	 * Whether the point with a given id is in the grid.
+	 */
+	private boolean[] alive;
+
+	/**
+	 * Ids that have been removed and can be reused.
+	 */
+	private int[] free;
+	private int freeCount;
+
+	/**
+	 * One past the largest id ever used, and the number of points in the grid.
+	 */
+	private int idLimit;
+	private int size;
+
+	/**
+	 * The cell index: the ids of the points in bucket b are
+	 * {@code cellIds[bucketStart[b]]} up to (not including)
+	 * {@code cellIds[bucketStart[b + 1]]}.
+	 */
+	private int[] bucketStart;
+	private int[] cellIds;
+	private int bucketMask;
+
+	/**
+	 * The smallest and largest cell coordinates of any point in the grid.
+	 */
+	private int minCx;
+	private int minCy;
+	private int maxCx;
+	private int maxCy;
+
+	/**
+	 * True if the cell index must be rebuilt before the next query.
+	 */
+	private boolean dirty;
+
+	/**
+	 * Scratch space for the k-nearest search.
+	 */
+	private int[] heapIds;
+	private double[] heapDist;
+
+	/**
+	 * Initializes this grid to be empty and have cells with the
+	 * specified side length.
+	 *
+	 * @param cellSize the side length of a cell
+	 * @throws IllegalArgumentException if cellSize is not positive
+	 */
+	public SpatialHashGrid(double cellSize) {
+		if (!(cellSize > 0.0) || Double.isInfinite(cellSize)) {
+			throw new IllegalArgumentException("cell size must be positive");
+		}
+		this.cellSize = cellSize;
+		this.invCellSize = 1.0 / cellSize;
+		this.x = new double[16];
+		this.y = new double[16];
+		this.alive = new boolean[16];
+		this.free = new int[16];
+		this.freeCount = 0;
+		this.idLimit = 0;
+		this.size = 0;
+		this.bucketStart = new int[2];
+		this.cellIds = new int[0];
+		this.bucketMask = 0;
+		this.dirty = false;
+		this.heapIds = new int[0];
+		this.heapDist = new double[0];
+	}
+
+	/**
+	 * Returns the side length of a cell.
+	 *
+	 * @return the side length of a cell
+	 */
+	public double cellSize() {
+		return this.cellSize;
+	}
+
+	/**
+	 * Returns the number of points in this grid.
+	 *
+	 * @return the number of points in this grid
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Replaces all of the points in this grid with the {@code n} points
+	 * {@code (x[i], y[i])}. The point {@code (x[i], y[i])} is given the id
+	 * {@code i}.
+	 *
+	 * @param x the x coordinates of the points
+	 * @param y the y coordinates of the points
+	 * @param n the number of points
+	 * @throws IllegalArgumentException if n is negative or greater than
+	 *         the length of either array
+	 */
+	public void build(double[] x, double[] y, int n) {
+		if (n < 0 || n > x.length || n > y.length) {
+			throw new IllegalArgumentException("bad number of points: " + n);
+		}
+		this.ensureCapacity(n);
+		System.arraycopy(x, 0, this.x, 0, n);
+		System.arraycopy(y, 0, this.y, 0, n);
+		Arrays.fill(this.alive, 0, n, true);
+		Arrays.fill(this.alive, n, this.alive.length, false);
+		this.freeCount = 0;
+		this.idLimit = n;
+		this.size = n;
+		this.dirty = true;
+	}
+
+	/**
+	 * Inserts the point {@code (x, y)} into this grid and returns its id.
+	 *
+	 * @param x the x coordinate of the point
+	 * @param y the y coordinate of the point
+	 * @return the id of the inserted point
+	 */
+	public int insert(double x, double y) {
+		int id;
+		if (this.freeCount > 0) {
+			this.freeCount--;
+			id = this.free[this.freeCount];
+		} else {
+			this.ensureCapacity(this.idLimit + 1);
+			id = this.idLimit;
+			this.idLimit++;
+		}
+		this.x[id] = x;
+		this.y[id] = y;
+		this.alive[id] = true;
+		this.size++;
+		this.dirty = true;
+		return id;
+	}
+
+	/**
+	 * Inserts a copy of the specified point into this grid and returns its id.
+	 *
+	 * @param p the point to insert
+	 * @return the id of the inserted point
+	 */
+	public int insert(Point2 p) {
+		return this.insert(p.x(), p.y());
+	}
+
+	/**
+	 * Removes the point with the specified id from this grid. The id may
+	 * be reused by a later insertion.
+	 *
+	 * @param id the id of a point in this grid
+	 * @throws IllegalArgumentException if there is no point with the specified id
+	 */
+	public void remove(int id) {
+		this.checkId(id);
+		this.alive[id] = false;
+		if (this.freeCount == this.free.length) {
+			this.free = Arrays.copyOf(this.free, 2 * this.free.length);
+		}
+		this.free[this.freeCount] = id;
+		this.freeCount++;
+		this.size--;
+		this.dirty = true;
+	}
+
+	/**
+	 * Moves the point with the specified id to {@code (x, y)}.
+	 *
+	 * @param id the id of a point in this grid
+	 * @param x the new x coordinate of the point
+	 * @param y the new y coordinate of the point
+	 * @throws IllegalArgumentException if there is no point with the specified id
+	 */
+	public void move(int id, double x, double y) {
+		this.checkId(id);
+		this.x[id] = x;
+		this.y[id] = y;
+		this.dirty = true;
+	}
+
+	/**
+	 * Returns a new point equal to the point with the specified id.
+	 *
+	 * @param id the id of a point in this grid
+	 * @return a new point equal to the point with the specified id
+	 * @throws IllegalArgumentException if there is no point with the specified id
+	 */
+	public Point2 get(int id) {
+		this.checkId(id);
+		return new Point2(this.x[id], this.y[id]);
+	}
+
+	/**
+	 * Throws an exception if there is no point with the specified id.
+	 *
+	 * @param id an id
+	 * @throws IllegalArgumentException if there is no point with the specified id
+	 */
+	private void checkId(int id) {
+		if (id < 0 || id >= this.idLimit || !this.alive[id]) {
+			throw new IllegalArgumentException("no point with id " + id);
+		}
+	}
+
+	/**
+	 * Makes sure that ids up to (not including) {@code n} can be stored.
+	 *
+	 * @param n the required capacity
+	 */
+	private void ensureCapacity(int n) {
+		if (n > this.x.length) {
+			int cap = Math.max(n, 2 * this.x.length);
+			this.x = Arrays.copyOf(this.x, cap);
+			this.y = Arrays.copyOf(this.y, cap);
+			this.alive = Arrays.copyOf(this.alive, cap);
+		}
+	}
+
+	/**
+	 * Returns the cell coordinate containing the coordinate {@code v}.
+	 * Coordinates more than {@code CELL_LIMIT} cells from the origin are
+	 * put in the outermost cell, so that every cell coordinate, and the
+	 * difference of any two, fits in an {@code int} and a loop over cell
+	 * coordinates always ends.
+	 *
+	 * @param v an x or y coordinate
+	 * @return the cell coordinate containing v
+	 */
+	private int cell(double v) {
+		double c = Math.floor(v * this.invCellSize);
+		if (c >= CELL_LIMIT) {
+			return CELL_LIMIT;
+		}
+		if (c <= -CELL_LIMIT) {
+			return -CELL_LIMIT;
+		}
+		return (int) c;
+	}
+
+	/**
+	 * Returns the bucket that the cell {@code (cx, cy)} is stored in.
+	 *
+	 * @param cx the x cell coordinate
+	 * @param cy the y cell coordinate
+	 * @return the bucket for the cell
+	 */
+	private int bucket(int cx, int cy) {
+		int h = cx * 0x9E3779B1 + cy * 0x85EBCA77;
+		h ^= h >>> 15;
+		return h & this.bucketMask;
+	}
+
+	/**
+	 * Rebuilds the cell index if any point has been inserted, removed,
+	 * or moved since the last rebuild.
+	 */
+	private void rebuild() {
+		if (!this.dirty) {
+			return;
+		}
+		int buckets = Integer.highestOneBit(Math.max(1, 2 * this.size - 1)) << 1;
+		if (this.bucketStart.length != buckets + 1) {
+			this.bucketStart = new int[buckets + 1];
+		} else {
+			Arrays.fill(this.bucketStart, 0);
+		}
+		if (this.cellIds.length < this.size) {
+			this.cellIds = new int[Math.max(this.size, 2 * this.cellIds.length)];
+		}
+		this.bucketMask = buckets - 1;
+		this.minCx = Integer.MAX_VALUE;
+		this.minCy = Integer.MAX_VALUE;
+		this.maxCx = Integer.MIN_VALUE;
+		this.maxCy = Integer.MIN_VALUE;
+
+		// count the points in each bucket
+		int[] start = this.bucketStart;
+		for (int id = 0; id < this.idLimit; id++) {
+			if (this.alive[id]) {
+				int cx = this.cell(this.x[id]);
+				int cy = this.cell(this.y[id]);
+				this.minCx = Math.min(this.minCx, cx);
+				this.minCy = Math.min(this.minCy, cy);
+				this.maxCx = Math.max(this.maxCx, cx);
+				this.maxCy = Math.max(this.maxCy, cy);
+				start[this.bucket(cx, cy) + 1]++;
+			}
+		}
+
+		// prefix sums give the start of each bucket
+		for (int b = 0; b < buckets; b++) {
+			start[b + 1] += start[b];
+		}
+
+		// place each id in its bucket; start[b] is advanced as ids are
+		// placed and then shifted back down afterwards
+		for (int id = 0; id < this.idLimit; id++) {
+			if (this.alive[id]) {
+				int b = this.bucket(this.cell(this.x[id]), this.cell(this.y[id]));
+				this.cellIds[start[b]] = id;
+				start[b]++;
+			}
+		}
+		for (int b = buckets; b > 0; b--) {
+			start[b] = start[b - 1];
+		}
+		start[0] = 0;
+		this.dirty = false;
+	}
+
+	/**
+	 * Finds the ids of the points whose distance to {@code (qx, qy)} is
+	 * less than or equal to {@code r}. The ids are stored in {@code out}
+	 * (in no particular order) and the number of points found is returned.
+	 * If more than {@code out.length} points are found then only the first
+	 * {@code out.length} are stored, but the returned value is still the
+	 * total number of points found.
+	 *
+	 * @param qx the x coordinate of the query point
+	 * @param qy the y coordinate of the query point
+	 * @param r the query radius
+	 * @param out the array to store the ids in
+	 * @return the number of points within distance r of (qx, qy)
+	 * @throws IllegalArgumentException if r is negative
+	 */
+	public int queryRadius(double qx, double qy, double r, int[] out) {
+		if (r < 0.0) {
+			throw new IllegalArgumentException("radius negative");
+		}
+		this.rebuild();
+		if (this.size == 0) {
+			return 0;
+		}
+		final double r2 = r * r;
+		int cx0 = Math.max(this.cell(qx - r), this.minCx);
+		int cx1 = Math.min(this.cell(qx + r), this.maxCx);
+		int cy0 = Math.max(this.cell(qy - r), this.minCy);
+		int cy1 = Math.min(this.cell(qy + r), this.maxCy);
+		int found = 0;
+		if (((long) cx1 - cx0 + 1) * ((long) cy1 - cy0 + 1) > this.size) {
+			// the query covers more cells than there are points
+			for (int id = 0; id < this.idLimit; id++) {
+				if (this.alive[id]) {
+					double dx = this.x[id] - qx;
+					double dy = this.y[id] - qy;
+					if (dx * dx + dy * dy <= r2) {
+						if (found < out.length) {
+							out[found] = id;
+						}
+						found++;
+					}
+				}
+			}
+			return found;
+		}
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int cx = cx0; cx <= cx1; cx++) {
+				int b = this.bucket(cx, cy);
+				for (int j = this.bucketStart[b]; j < this.bucketStart[b + 1]; j++) {
+					int id = this.cellIds[j];
+					double px = this.x[id];
+					double py = this.y[id];
+					// other cells can share this bucket
+					if (this.cell(px) != cx || this.cell(py) != cy) {
+						continue;
+					}
+					double dx = px - qx;
+					double dy = py - qy;
+					if (dx * dx + dy * dy <= r2) {
+						if (found < out.length) {
+							out[found] = id;
+						}
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the ids of the {@code out.length} points nearest to
+	 * {@code (qx, qy)}. The ids are stored in {@code out} in order of
+	 * increasing distance. If this grid has fewer than {@code out.length}
+	 * points then the ids of all of the points are stored. Returns the
+	 * number of ids stored.
+	 *
+	 * @param qx the x coordinate of the query point
+	 * @param qy the y coordinate of the query point
+	 * @param out the array to store the ids in
+	 * @return the number of ids stored in out
+	 */
+	public int queryNearest(double qx, double qy, int[] out) {
+		this.rebuild();
+		final int k = out.length;
+		if (k == 0 || this.size == 0) {
+			return 0;
+		}
+		if (this.heapIds.length < k) {
+			this.heapIds = new int[k];
+			this.heapDist = new double[k];
+		}
+		int count = 0;
+		long qcx = this.cell(qx);
+		long qcy = this.cell(qy);
+
+		// the rings from the first one that touches the cells holding
+		// points to the last one needed to cover every point; long
+		// arithmetic because the query can be far outside the grid
+		long firstRing = Math.max(
+				Math.max(Math.max(this.minCx - qcx, qcx - this.maxCx), 0),
+				Math.max(Math.max(this.minCy - qcy, qcy - this.maxCy), 0));
+		long maxRing = Math.max(
+				Math.max(Math.abs(qcx - this.minCx), Math.abs(qcx - this.maxCx)),
+				Math.max(Math.abs(qcy - this.minCy), Math.abs(qcy - this.maxCy)));
+
+		// the number of cells visited so far
+		long visited = 0;
+		for (long ring = firstRing; ring <= maxRing; ring++) {
+			// every point in a cell of this ring is at least
+			// (ring - 1) * cellSize away from the query point
+			if (count == k) {
+				double d = (ring - 1) * this.cellSize;
+				if (d > 0.0 && d * d > this.heapDist[0]) {
+					break;
+				}
+			}
+			// only the part of the ring that overlaps the cells holding
+			// points is visited
+			long left = qcx - ring;
+			long right = qcx + ring;
+			long top = qcy - ring;
+			long bottom = qcy + ring;
+			int cx0 = (int) Math.max(left, this.minCx);
+			int cx1 = (int) Math.min(right, this.maxCx);
+			int cy0 = (int) Math.max(top, this.minCy);
+			int cy1 = (int) Math.min(bottom, this.maxCy);
+
+			// once more cells than points would be visited, as for a query
+			// far from sparse points, scanning every point is faster
+			long edgeRows = (top >= cy0 ? 1 : 0) + (bottom <= cy1 && bottom != top ? 1 : 0);
+			long sides = (left >= this.minCx ? 1 : 0) + (right <= this.maxCx ? 1 : 0);
+			visited += edgeRows * ((long) cx1 - cx0 + 1)
+					+ ((long) cy1 - cy0 + 1 - edgeRows) * sides;
+			if (visited > this.size) {
+				count = 0;
+				for (int id = 0; id < this.idLimit; id++) {
+					if (this.alive[id]) {
+						double dx = this.x[id] - qx;
+						double dy = this.y[id] - qy;
+						count = this.offer(id, dx * dx + dy * dy, k, count);
+					}
+				}
+				break;
+			}
+			for (int cy = cy0; cy <= cy1; cy++) {
+				if (cy == top || cy == bottom) {
+					for (int cx = cx0; cx <= cx1; cx++) {
+						count = this.collectNearest(cx, cy, qx, qy, k, count);
+					}
+				} else {
+					if (left >= this.minCx) {
+						count = this.collectNearest((int) left, cy, qx, qy, k, count);
+					}
+					if (right <= this.maxCx) {
+						count = this.collectNearest((int) right, cy, qx, qy, k, count);
+					}
+				}
+			}
+		}
+
+		// heap sort the results into increasing order of distance
+		int n = count;
+		while (n > 1) {
+			n--;
+			this.swap(0, n);
+			this.siftDown(0, n);
+		}
+		System.arraycopy(this.heapIds, 0, out, 0, count);
+		return count;
+	}
+
+	/**
+	 * Adds the points in cell {@code (cx, cy)} to the max-heap of the
+	 * {@code k} nearest points found so far. Returns the new number of
+	 * points in the heap.
+	 */
+	private int collectNearest(int cx, int cy, double qx, double qy, int k, int count) {
+		if (cx < this.minCx || cx > this.maxCx || cy < this.minCy || cy > this.maxCy) {
+			return count;
+		}
+		int b = this.bucket(cx, cy);
+		for (int j = this.bucketStart[b]; j < this.bucketStart[b + 1]; j++) {
+			int id = this.cellIds[j];
+			double px = this.x[id];
+			double py = this.y[id];
+			if (this.cell(px) != cx || this.cell(py) != cy) {
+				continue;
+			}
+			double dx = px - qx;
+			double dy = py - qy;
+			count = this.offer(id, dx * dx + dy * dy, k, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the point {@code id} at squared distance {@code d2} to the
+	 * max-heap of the {@code k} nearest points found so far, which holds
+	 * {@code count} points. Returns the new number of points in the heap.
+	 */
+	private int offer(int id, double d2, int k, int count) {
+		if (count < k) {
+			// sift up
+			int i = count;
+			count++;
+			this.heapIds[i] = id;
+			this.heapDist[i] = d2;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (this.heapDist[parent] >= this.heapDist[i]) {
+					break;
+				}
+				this.swap(i, parent);
+				i = parent;
+			}
+		} else if (d2 < this.heapDist[0]) {
+			this.heapIds[0] = id;
+			this.heapDist[0] = d2;
+			this.siftDown(0, k);
+		}
+		return count;
+	}
+
+	private void siftDown(int i, int n) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= n) {
+				return;
+			}
+			if (child + 1 < n && this.heapDist[child + 1] > this.heapDist[child]) {
+				child++;
+			}
+			if (this.heapDist[i] >= this.heapDist[child]) {
+				return;
+			}
+			this.swap(i, child);
+			i = child;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int id = this.heapIds[i];
+		this.heapIds[i] = this.heapIds[j];
+		this.heapIds[j] = id;
+		double d = this.heapDist[i];
+		this.heapDist[i] = this.heapDist[j];
+		this.heapDist[j] = d;
+	}
+
+	/**
+	 * Compares the time needed to answer radius queries using a grid
+	 * and by checking every point, for 10,000, 100,000, and 1,000,000
+	 * uniformly distributed points. The grid time includes rebuilding
+	 * the grid from arrays, as would be done once per frame.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final int queries = 1000;
+		Random rng = new Random(1);
+		for (int n : new int[] {10_000, 100_000, 1_000_000}) {
+			double side = Math.sqrt(n);
+			double r = 2.0;
+			double[] x = new double[n];
+			double[] y = new double[n];
+			for (int i = 0; i < n; i++) {
+				x[i] = side * rng.nextDouble();
+				y[i] = side * rng.nextDouble();
+			}
+			SpatialHashGrid grid = new SpatialHashGrid(r);
+			int[] out = new int[n];
+			for (int rep = 0; rep < 3; rep++) {
+				long start = System.nanoTime();
+				grid.build(x, y, n);
+				long gridFound = 0;
+				for (int q = 0; q < queries; q++) {
+					gridFound += grid.queryRadius(x[q], y[q], r, out);
+				}
+				double gridTime = (System.nanoTime() - start) / 1e9;
+
+				start = System.nanoTime();
+				long bruteFound = 0;
+				for (int q = 0; q < queries; q++) {
+					for (int i = 0; i < n; i++) {
+						double dx = x[i] - x[q];
+						double dy = y[i] - y[q];
+						if (dx * dx + dy * dy <= r * r) {
+							bruteFound++;
+						}
+					}
+				}
+				double bruteTime = (System.nanoTime() - start) / 1e9;
+				if (rep == 2) {
+					System.out.printf("n = %d, %d queries: grid (incl. build) %.2f ms, brute force %.2f ms (%d, %d found)%n",
+							n, queries, 1e3 * gridTime, 1e3 * bruteTime, gridFound, bruteFound);
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package ca.queensu.cs.cisc124.notes.basics.geometry;
 
+import java.util.Random;
+
 /**
  * A vector in 2-dimensional Cartesian space having real coordinates.
  *
@@ -39,7 +41,7 @@ public class Vector2 {
      * @param other the vector to copy
      */
     public Vector2(Vector2 other) {
-            this(other.x, other.y);
+            this(other.x(), other.y());
     }
 
 		
@@ -108,8 +110,8 @@ public class Vector2 {
 	 * @return a reference to this vector
 	 */
 	public Vector2 add(Vector2 w) {
-		this.x += w.x;
-		this.y += w.y;
+		this.x += w.x();
+		this.y += w.y();
 		return this;
 	}
 	
@@ -125,8 +127,8 @@ public class Vector2 {
 	 * @return a reference to this vector
 	 */
 	public Vector2 subtract(Vector2 w) {
-		this.x -= w.x;
-		this.y -= w.y;
+		this.x -= w.x();
+		this.y -= w.y();
 		return this;
 	}
 	
@@ -204,7 +206,47 @@ public class Vector2 {
 	public double mag() {
 		return Math.hypot(this.x(), this.y());
 	}
-	
+
+	/**
+	 * Returns the squared magnitude (squared length) of this vector.
+	 *
+	 * <p>
+	 * Use this method instead of {@code mag} when comparing the lengths
+	 * of vectors; it avoids computing a square root. The result overflows
+	 * to infinity if a coordinate has a magnitude larger than about
+	 * {@code 1e154}.
+	 *
+	 * @return the squared magnitude (squared length) of this vector
+	 */
+	public double magSquared() {
+		double x = this.x();
+		double y = this.y();
+		return x * x + y * y;
+	}
+
+	/**
+	 * Returns the magnitude (length) of this vector computed as
+	 * {@code Math.sqrt(x * x + y * y)}.
+	 *
+	 * <p>
+	 * This method is several times faster than {@code mag}. For vectors
+	 * whose squared length is a normal, finite {@code double} the result
+	 * differs from {@code mag} by at most 2 ulps. If computing the squared
+	 * length would overflow or underflow then this method returns the
+	 * value of {@code mag} instead.
+	 *
+	 * @return the magnitude (length) of this vector
+	 */
+	public double fastMag() {
+		double x = this.x();
+		double y = this.y();
+		double s = x * x + y * y;
+		if (s >= Double.MIN_NORMAL && s < Double.POSITIVE_INFINITY) {
+			return Math.sqrt(s);
+		}
+		return Math.hypot(x, y);
+	}
+
 	/**
 	 * Returns a new vector equal to {@code v + w}.
 	 * 
@@ -287,4 +329,50 @@ public class Vector2 {
 			append(")");
 		return s.toString();
 	}
+
+	/**
+	 * Checks the accuracy of {@code fastMag} against {@code mag} for random
+	 * vectors, and compares the time needed to compute {@code mag},
+	 * {@code fastMag}, and {@code magSquared}.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		final int n = 1_000_000;
+		Random rng = new Random(1);
+		Vector2[] vs = new Vector2[n];
+		double maxUlps = 0.0;
+		for (int i = 0; i < n; i++) {
+			double scale = Math.pow(10.0, rng.nextInt(601) - 300);
+			vs[i] = new Vector2(scale * rng.nextGaussian(), scale * rng.nextGaussian());
+			double exact = vs[i].mag();
+			double ulps = Math.abs(vs[i].fastMag() - exact) / Math.ulp(exact);
+			maxUlps = Math.max(maxUlps, ulps);
+		}
+		System.out.println("max error of fastMag: " + maxUlps + " ulps");
+
+		for (int rep = 0; rep < 3; rep++) {
+			double sum = 0.0;
+			long start = System.nanoTime();
+			for (Vector2 v : vs) {
+				sum += v.mag();
+			}
+			double hypot = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			for (Vector2 v : vs) {
+				sum += v.fastMag();
+			}
+			double fast = (System.nanoTime() - start) / 1e9;
+
+			start = System.nanoTime();
+			for (Vector2 v : vs) {
+				sum += v.magSquared();
+			}
+			double squared = (System.nanoTime() - start) / 1e9;
+
+			System.out.printf("mag: %.2f ms, fastMag: %.2f ms, magSquared: %.2f ms (%s)%n",
+					1e3 * hypot, 1e3 * fast, 1e3 * squared, sum > 0.0);
+		}
+	}
 }
@@ -0,0 +1,260 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * Bulk versions of the {@code Vector2} and {@code Point2} operations that
+ * work on many vectors (or points) at once.
+ *
+ * <p>
+ * The vectors are stored in two parallel arrays, one holding the x
+ * coordinates and one holding the y coordinates, so that element
+ * {@code i} is the vector {@code (x[i], y[i])}. Every method is a simple
+ * counted loop over the arrays with no method calls or objects in the
+ * loop body, so the coordinates are read from memory in order and no
+ * {@code Vector2} objects need to be created or followed. Whether the
+ * JIT compiler also turns a loop into SIMD instructions depends on the
+ * loop, the JVM, and the processor, and is not something these methods
+ * promise; run {@code main} to measure them on a given machine.
+ *
+ * <p>
+ * The magnitude computations use {@code Math.sqrt(x * x + y * y)} instead
+ * of {@code Math.hypot} because {@code Math.sqrt} is much faster than
+ * {@code Math.hypot}. The result can overflow to infinity if a coordinate
+ * has a magnitude larger than about {@code 1e154}.
+ *
+ */
+public final class Vector2Kernels {
+
+	/**
+	 * Suppress constructor creation by compiler to prevent instantiation.
+	 */
+	private Vector2Kernels() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Throws an exception if any of the specified arrays has
+	 * a length different from {@code n}.
+	 *
+	 * @param n the required length
+	 * @param arrays the arrays to check
+	 * @throws IllegalArgumentException if the lengths differ
+	 */
+	private static void checkLengths(int n, double[]... arrays) {
+		for (double[] a : arrays) {
+			if (a.length != n) {
+				throw new IllegalArgumentException("array lengths differ");
+			}
+		}
+	}
+
+	/**
+	 * Computes {@code out[i] = (ax[i], ay[i]) . (bx[i], by[i])} for every
+	 * index {@code i}.
+	 *
+	 * @param ax the x coordinates of the first vectors
+	 * @param ay the y coordinates of the first vectors
+	 * @param bx the x coordinates of the second vectors
+	 * @param by the y coordinates of the second vectors
+	 * @param out the array to store the dot products in
+	 * @throws IllegalArgumentException if the array lengths differ
+	 */
+	public static void dot(double[] ax, double[] ay, double[] bx, double[] by, double[] out) {
+		final int n = out.length;
+		checkLengths(n, ax, ay, bx, by);
+		for (int i = 0; i < n; i++) {
+			out[i] = ax[i] * bx[i] + ay[i] * by[i];
+		}
+	}
+
+	/**
+	 * Computes the magnitude of every vector {@code (x[i], y[i])} and
+	 * stores it in {@code out[i]}.
+	 *
+	 * @param x the x coordinates of the vectors
+	 * @param y the y coordinates of the vectors
+	 * @param out the array to store the magnitudes in
+	 * @throws IllegalArgumentException if the array lengths differ
+	 */
+	public static void mag(double[] x, double[] y, double[] out) {
+		final int n = out.length;
+		checkLengths(n, x, y);
+		for (int i = 0; i < n; i++) {
+			out[i] = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+		}
+	}
+
+	/**
+	 * Divides every vector {@code (x[i], y[i])} by its magnitude so that it
+	 * has length one. Vectors of length zero are left unchanged.
+	 *
+	 * @param x the x coordinates of the vectors
+	 * @param y the y coordinates of the vectors
+	 * @throws IllegalArgumentException if the array lengths differ
+	 */
+	public static void normalize(double[] x, double[] y) {
+		final int n = x.length;
+		checkLengths(n, y);
+		for (int i = 0; i < n; i++) {
+			double m = Math.sqrt(x[i] * x[i] + y[i] * y[i]);
+			double s = m == 0.0 ? 1.0 : 1.0 / m;
+			x[i] *= s;
+			y[i] *= s;
+		}
+	}
+
+	/**
+	 * Computes the distance from every point {@code (x[i], y[i])} to
+	 * the specified point {@code p} and stores it in {@code out[i]}.
+	 *
+	 * @param p a point
+	 * @param x the x coordinates of the points
+	 * @param y the y coordinates of the points
+	 * @param out the array to store the distances in
+	 * @throws IllegalArgumentException if the array lengths differ
+	 */
+	public static void distanceTo(Point2 p, double[] x, double[] y, double[] out) {
+		final int n = out.length;
+		checkLengths(n, x, y);
+		final double px = p.x();
+		final double py = p.y();
+		for (int i = 0; i < n; i++) {
+			double dx = x[i] - px;
+			double dy = y[i] - py;
+			out[i] = Math.sqrt(dx * dx + dy * dy);
+		}
+	}
+
+	/**
+	 * Tests whether every point {@code (x[i], y[i])} is inside the
+	 * specified box and stores the result in {@code out[i]}. Returns
+	 * the number of points inside the box.
+	 *
+	 * @param box a box
+	 * @param x the x coordinates of the points
+	 * @param y the y coordinates of the points
+	 * @param out the array to store the results in
+	 * @return the number of points inside the box
+	 * @throws IllegalArgumentException if the array lengths differ
+	 */
+	public static int inside(Box2 box, double[] x, double[] y, boolean[] out) {
+		final int n = out.length;
+		checkLengths(n, x, y);
+		final double xmin = box.xmin();
+		final double ymin = box.ymin();
+		final double xmax = box.xmax();
+		final double ymax = box.ymax();
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			boolean in = x[i] >= xmin & x[i] <= xmax & y[i] >= ymin & y[i] <= ymax;
+			out[i] = in;
+			count += in ? 1 : 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the time in seconds needed to run {@code task} {@code reps} times.
+	 *
+	 * @param task the task to time
+	 * @param reps the number of times to run the task
+	 * @return the time in seconds needed to run the task reps times
+	 */
+	private static double time(Runnable task, int reps) {
+		long start = System.nanoTime();
+		for (int r = 0; r < reps; r++) {
+			task.run();
+		}
+		return (System.nanoTime() - start) / 1e9;
+	}
+
+	/**
+	 * Reports the throughput of every bulk kernel and of the equivalent
+	 * loop that calls a {@code Vector2}, {@code Point2}, or {@code Box2}
+	 * method once per element.
+	 *
+	 * <p>
+	 * The array sizes to test can be given as command line arguments;
+	 * the default sizes are 1,000 and 1,000,000 elements.
+	 *
+	 * @param args the array sizes to test
+	 */
+	public static void main(String[] args) {
+		int[] sizes = {1_000, 1_000_000};
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		final Point2 p = new Point2(0.5, 0.5);
+		final Box2 box = new Box2(0.25, 0.25, 0.75, 0.75);
+		for (int n : sizes) {
+			final double[] x = new double[n];
+			final double[] y = new double[n];
+			final double[] out = new double[n];
+			final boolean[] in = new boolean[n];
+			final Vector2[] vs = new Vector2[n];
+			final Point2[] ps = new Point2[n];
+			for (int i = 0; i < n; i++) {
+				x[i] = Math.random();
+				y[i] = Math.random();
+				vs[i] = new Vector2(x[i], y[i]);
+				ps[i] = new Point2(x[i], y[i]);
+			}
+
+			// normalize changes the arrays, so it is timed last
+			String[] names = {"dot", "mag", "distanceTo", "inside", "normalize"};
+			Runnable[] kernels = {
+				() -> dot(x, y, x, y, out),
+				() -> mag(x, y, out),
+				() -> distanceTo(p, x, y, out),
+				() -> inside(box, x, y, in),
+				() -> normalize(x, y)
+			};
+			Runnable[] scalars = {
+				() -> {
+					for (int i = 0; i < n; i++) {
+						out[i] = vs[i].dot(vs[i]);
+					}
+				},
+				() -> {
+					for (int i = 0; i < n; i++) {
+						out[i] = vs[i].mag();
+					}
+				},
+				() -> {
+					for (int i = 0; i < n; i++) {
+						out[i] = Math.sqrt(ps[i].distanceSquared(p));
+					}
+				},
+				() -> {
+					for (int i = 0; i < n; i++) {
+						in[i] = box.contains(ps[i]);
+					}
+				},
+				() -> {
+					for (int i = 0; i < n; i++) {
+						double m = vs[i].mag();
+						if (m != 0.0) {
+							vs[i].divide(m);
+						}
+					}
+				}
+			};
+
+			int reps = Math.max(1, 200_000_000 / n);
+			double ops = (double) n * reps / 1e6;
+			System.out.printf("n = %d%n", n);
+			for (int k = 0; k < names.length; k++) {
+				double kernel = 0.0;
+				double scalar = 0.0;
+				for (int warm = 0; warm < 2; warm++) {
+					kernel = time(kernels[k], reps);
+					scalar = time(scalars[k], reps);
+				}
+				System.out.printf("  %-11s kernel %7.1f Mops/s, per element %7.1f Mops/s%n",
+						names[k] + ":", ops / kernel, ops / scalar);
+			}
+		}
+	}
+}
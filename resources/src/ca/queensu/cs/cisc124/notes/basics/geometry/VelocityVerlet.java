@@ -0,0 +1,134 @@
+package ca.queensu.cs.cisc124.notes.basics.geometry;
+
+/**
+ * The velocity Verlet method. The position is advanced using the current
+ * velocity and acceleration, and the velocity is advanced using the
+ * average of the accelerations at the start and end of the step. It has
+ * second order accuracy and keeps the energy of an oscillating system
+ * close to constant.
+ *
+ * <p>
+ * The acceleration at the end of a step is the acceleration at the start
+ * of the next step. If the force field does not depend on velocity then
+ * it is remembered and reused, so that each step needs only one
+ * evaluation of the force field as long as the next step starts at the
+ * time the previous one ended and no position was changed in between.
+ *
+ * <p>
+ * If the force field depends on velocity then the acceleration at the
+ * end of the step is estimated using a first order prediction of
+ * the new velocity, and each step needs two evaluations of the field.
+ *
+ */
+public class VelocityVerlet implements Integrator {
+
+	private double[] ax0 = new double[0];
+	private double[] ay0 = new double[0];
+	private double[] ax1 = new double[0];
+	private double[] ay1 = new double[0];
+	private double[] pvx = new double[0];
+	private double[] pvy = new double[0];
+
+	/**
+	 * The positions, field, time, and number of projectiles for which
+	 * {@code ax0} and {@code ay0} hold the acceleration, if
+	 * {@code cached} is true.
+	 */
+	private double[] cx = new double[0];
+	private double[] cy = new double[0];
+	private ForceField cachedField;
+	private double cachedTime;
+	private int cachedSize;
+	private boolean cached;
+
+	@Override
+	public void step(ProjectileSystem sys, ForceField field, double t, double dt) {
+		final int n = sys.size();
+		final double[] x = sys.xs();
+		final double[] y = sys.ys();
+		final double[] vx = sys.vxs();
+		final double[] vy = sys.vys();
+		if (this.ax0.length < n) {
+			this.ax0 = new double[n];
+			this.ay0 = new double[n];
+			this.ax1 = new double[n];
+			this.ay1 = new double[n];
+			this.pvx = new double[n];
+			this.pvy = new double[n];
+			this.cx = new double[n];
+			this.cy = new double[n];
+			this.cached = false;
+		}
+		final double[] ax0 = this.ax0;
+		final double[] ay0 = this.ay0;
+		final double[] ax1 = this.ax1;
+		final double[] ay1 = this.ay1;
+		final double hdt2 = 0.5 * dt * dt;
+
+		if (field.dependsOnVelocity()) {
+			this.cached = false;
+			final double[] pvx = this.pvx;
+			final double[] pvy = this.pvy;
+			field.accelerate(n, t, x, y, vx, vy, ax0, ay0);
+			for (int i = 0; i < n; i++) {
+				x[i] += dt * vx[i] + hdt2 * ax0[i];
+				y[i] += dt * vy[i] + hdt2 * ay0[i];
+				pvx[i] = vx[i] + dt * ax0[i];
+				pvy[i] = vy[i] + dt * ay0[i];
+			}
+			field.accelerate(n, t + dt, x, y, pvx, pvy, ax1, ay1);
+			for (int i = 0; i < n; i++) {
+				vx[i] += 0.5 * dt * (ax0[i] + ax1[i]);
+				vy[i] += 0.5 * dt * (ay0[i] + ay1[i]);
+			}
+			return;
+		}
+
+		if (!this.isCached(field, t, n, x, y)) {
+			field.accelerate(n, t, x, y, vx, vy, ax0, ay0);
+		}
+		for (int i = 0; i < n; i++) {
+			x[i] += dt * vx[i] + hdt2 * ax0[i];
+			y[i] += dt * vy[i] + hdt2 * ay0[i];
+		}
+		field.accelerate(n, t + dt, x, y, vx, vy, ax1, ay1);
+		final double[] cx = this.cx;
+		final double[] cy = this.cy;
+		for (int i = 0; i < n; i++) {
+			vx[i] += 0.5 * dt * (ax0[i] + ax1[i]);
+			vy[i] += 0.5 * dt * (ay0[i] + ay1[i]);
+			cx[i] = x[i];
+			cy[i] = y[i];
+		}
+
+		// the acceleration at the end of this step is the acceleration at
+		// the start of the next one
+		this.ax0 = ax1;
+		this.ay0 = ay1;
+		this.ax1 = ax0;
+		this.ay1 = ay0;
+		this.cachedField = field;
+		this.cachedTime = t + dt;
+		this.cachedSize = n;
+		this.cached = true;
+	}
+
+	/**
+	 * Returns true if {@code ax0} and {@code ay0} hold the acceleration
+	 * of the first {@code n} projectiles at positions {@code (x, y)} and
+	 * time {@code t} in the specified field.
+	 */
+	private boolean isCached(ForceField field, double t, int n, double[] x, double[] y) {
+		if (!this.cached || field != this.cachedField || t != this.cachedTime || n != this.cachedSize) {
+			return false;
+		}
+		final double[] cx = this.cx;
+		final double[] cy = this.cy;
+		for (int i = 0; i < n; i++) {
+			if (x[i] != cx[i] || y[i] != cy[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
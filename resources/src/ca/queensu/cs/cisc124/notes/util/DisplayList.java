@@ -0,0 +1,463 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac DisplayList.java
+ *  Execution:    java DisplayList [n] [size] [tile]
+ *
+ *  A recorded drawing. A DrawCanvas (or StdDraw) that is recording adds
+ *  each primitive it would have drawn to a display list instead. The
+ *  list can then be rendered into an image, either in one pass or by
+ *  splitting the image into tiles that are rendered in parallel.
+ *
+ *  Remarks
+ *  -------
+ *    -  the primitives are recorded in pixel coordinates, after the canvas
+ *       has scaled, culled, and collapsed them exactly as when drawing
+ *    -  a tile only replays the primitives whose bounding boxes
+ *       overlap it
+ *
+ *************************************************************************/
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  <i>Display list</i>. This class holds a drawing recorded by a
+ *  {@link DrawCanvas} or by {@link StdDraw} between calls to
+ *  <tt>startRecording()</tt> and <tt>stopRecording()</tt>, so that it can
+ *  be rendered later. The drawing methods themselves are those of the
+ *  canvas, so a recorded primitive is exactly the one the canvas would
+ *  have drawn. Rendering with <tt>render(pool, tileSize)</tt> splits the
+ *  image into square tiles, gives each tile only the primitives that
+ *  overlap it, and rasterizes the tiles in parallel before copying them
+ *  into the final image. The result is the same as rendering the list in
+ *  one pass with <tt>render()</tt>.
+ *  <p>
+ *  A display list is not safe for use by more than one thread at a time
+ *  while it is being recorded; rendering does not modify the list.
+ */
+public class DisplayList {
+
+    // the color of a drawing before anything is drawn, as for a new canvas
+    private static final Color DEFAULT_CLEAR_COLOR = Color.WHITE;
+
+    // default tile size in pixels for parallel rendering
+    private static final int DEFAULT_TILE_SIZE = 256;
+
+    // kinds of primitives
+    private static final int DRAW  = 0;
+    private static final int FILL  = 1;
+    private static final int PIXEL = 2;
+    private static final int TEXT  = 3;
+    private static final int IMAGE = 4;
+
+    // a recorded primitive in pixel coordinates, with its pen state
+    // and the bounding box of the pixels it may touch; an image is drawn
+    // from the source to the destination rectangle given by corners, as
+    // dx0, dy0, dx1, dy1, sx0, sy0, sx1, sy1 for Graphics.drawImage()
+    private static final class Op {
+        final int kind;
+        final Shape shape;
+        final String text;
+        final float tx, ty;
+        final Color color;
+        final Stroke stroke;
+        final Font font;
+        final AffineTransform transform;
+        final Image image;
+        final int[] corners;
+        final int x0, y0, x1, y1;
+
+        Op(int kind, Shape shape, String text, float tx, float ty, Color color,
+           Stroke stroke, Font font, AffineTransform transform, Image image, int[] corners,
+           int x0, int y0, int x1, int y1) {
+            this.kind = kind;
+            this.shape = shape;
+            this.text = text;
+            this.tx = tx;
+            this.ty = ty;
+            this.color = color;
+            this.stroke = stroke;
+            this.font = font;
+            this.transform = transform;
+            this.image = image;
+            this.corners = corners;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+    }
+
+    // size of the drawing in pixels
+    private final int width;
+    private final int height;
+
+    // the recorded primitives, in drawing order
+    private final ArrayList<Op> ops = new ArrayList<Op>();
+
+    /**
+     * Create an empty display list for a drawing of the default size
+     * 512-by-512 pixels.
+     */
+    public DisplayList() {
+        this(DrawCanvas.DEFAULT_SIZE, DrawCanvas.DEFAULT_SIZE);
+    }
+
+    /**
+     * Create an empty display list for a drawing of w-by-h pixels. It can
+     * be recorded into by a canvas of the same size.
+     *
+     * @param w the width as a number of pixels
+     * @param h the height as a number of pixels
+     * @throws RuntimeException if the width or height is 0 or negative
+     */
+    public DisplayList(int w, int h) {
+        if (w < 1 || h < 1) throw new RuntimeException("width and height must be positive");
+        width = w;
+        height = h;
+    }
+
+    /**
+     * Get the width of the drawing in pixels.
+     * @return the width of the drawing in pixels
+     */
+    public int width() { return width; }
+
+    /**
+     * Get the height of the drawing in pixels.
+     * @return the height of the drawing in pixels
+     */
+    public int height() { return height; }
+
+    /**
+     * Get the number of primitives recorded so far.
+     * @return the number of primitives recorded so far
+     */
+    public int size() { return ops.size(); }
+
+    /**
+     * Remove all of the recorded primitives.
+     */
+    public void reset() { ops.clear(); }
+
+
+   /*************************************************************************
+    *  Recording primitives; called by a recording DrawCanvas, which passes
+    *  the bounds in pixels of each primitive it has just culled.
+    *************************************************************************/
+
+    // record the outline of a shape; the shape is copied, since the canvas
+    // reuses its shapes
+    void addDraw(Shape s, Color color, Stroke stroke, double x0, double y0, double x1, double y1) {
+        add(DRAW, copy(s), null, 0, 0, color, stroke, null, null, x0, y0, x1, y1);
+    }
+
+    // record a filled shape
+    void addFill(Shape s, Color color, double x0, double y0, double x1, double y1) {
+        add(FILL, copy(s), null, 0, 0, color, null, null, null, x0, y0, x1, y1);
+    }
+
+    // record the pixel in column x and row y
+    void addPixel(int x, int y, Color color) {
+        add(PIXEL, null, null, x, y, color, null, null, null, x, y, x, y);
+    }
+
+    // record text drawn at (x, y) through the given transform, which is
+    // copied unless it is the identity
+    void addText(String s, float x, float y, Color color, Font font, AffineTransform transform,
+                 double x0, double y0, double x1, double y1) {
+        AffineTransform t = transform.isIdentity() ? null : new AffineTransform(transform);
+        add(TEXT, null, s, x, y, color, null, font, t, x0, y0, x1, y1);
+    }
+
+    // record the part (sx0, sy0)-(sx1, sy1) of an image drawn into the
+    // rectangle (dx0, dy0)-(dx1, dy1) through the given transform, which is
+    // copied unless it is the identity; the image itself is not copied, so
+    // it must not change afterwards, and an image that is entirely off the
+    // drawing is not recorded, since the canvas does not cull images
+    void addImage(Image image, int dx0, int dy0, int dx1, int dy1, int sx0, int sy0, int sx1, int sy1,
+                  AffineTransform transform, double x0, double y0, double x1, double y1) {
+        if (x1 < 0 || y1 < 0 || x0 >= width || y0 >= height) return;
+        AffineTransform t = transform.isIdentity() ? null : new AffineTransform(transform);
+        int[] corners = { dx0, dy0, dx1, dy1, sx0, sy0, sx1, sy1 };
+        ops.add(new Op(IMAGE, null, null, 0, 0, null, null, null, t, image, corners,
+                       (int) Math.floor(x0), (int) Math.floor(y0),
+                       (int) Math.ceil(x1),  (int) Math.ceil(y1)));
+    }
+
+    private void add(int kind, Shape s, String text, float tx, float ty, Color color, Stroke stroke,
+                     Font font, AffineTransform transform, double x0, double y0, double x1, double y1) {
+        ops.add(new Op(kind, s, text, tx, ty, color, stroke, font, transform, null, null,
+                       (int) Math.floor(x0), (int) Math.floor(y0),
+                       (int) Math.ceil(x1),  (int) Math.ceil(y1)));
+    }
+
+    // a copy of one of the shapes that a canvas draws
+    private static Shape copy(Shape s) {
+        if (s instanceof RectangularShape) return (Shape) ((RectangularShape) s).clone();
+        if (s instanceof Line2D)           return (Shape) ((Line2D) s).clone();
+        if (s instanceof Path2D)           return (Shape) ((Path2D) s).clone();
+        return new Path2D.Double(s);
+    }
+
+
+   /*************************************************************************
+    *  Rendering.
+    *************************************************************************/
+
+    // replay one primitive
+    private static void replay(Graphics2D g, Op op) {
+        if (op.kind == IMAGE) {
+            int[] c = op.corners;
+            if (op.transform == null)
+                g.drawImage(op.image, c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], null);
+            else {
+                AffineTransform t = g.getTransform();
+                g.transform(op.transform);
+                g.drawImage(op.image, c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], null);
+                g.setTransform(t);
+            }
+            return;
+        }
+        g.setColor(op.color);
+        switch (op.kind) {
+            case DRAW:
+                g.setStroke(op.stroke);
+                g.draw(op.shape);
+                break;
+            case FILL:
+                g.fill(op.shape);
+                break;
+            case PIXEL:
+                g.fillRect(op.x0, op.y0, 1, 1);
+                break;
+            default:
+                g.setFont(op.font);
+                if (op.transform == null) g.drawString(op.text, op.tx, op.ty);
+                else {
+                    AffineTransform t = g.getTransform();
+                    g.transform(op.transform);
+                    g.drawString(op.text, op.tx, op.ty);
+                    g.setTransform(t);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Replay the recorded primitives, in order, on the given graphics
+     * context. The graphics context should be for an image of the same
+     * size as this display list.
+     * @param g the graphics context to draw on
+     */
+    public void drawOn(Graphics2D g) {
+        for (Op op : ops) replay(g, op);
+    }
+
+    /**
+     * Render the recorded primitives in one pass on the calling thread.
+     * @return a new image of the drawing
+     */
+    public BufferedImage render() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(DEFAULT_CLEAR_COLOR);
+        g.fillRect(0, 0, width, height);
+        DrawCanvas.addHints(g);
+        drawOn(g);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Render the recorded primitives by splitting the drawing into tiles
+     * of 256-by-256 pixels and rendering the tiles in parallel using the
+     * common fork/join pool.
+     * @return a new image of the drawing
+     */
+    public BufferedImage renderParallel() {
+        return render(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Render the recorded primitives by splitting the drawing into tiles
+     * of tileSize-by-tileSize pixels and rendering the tiles in parallel
+     * in the given pool. Each tile replays, in order, only the primitives
+     * whose bounding boxes overlap it.
+     * @param pool the pool that renders the tiles
+     * @param tileSize the width and height of a tile in pixels
+     * @return a new image of the drawing
+     * @throws RuntimeException if tileSize is 0 or negative
+     */
+    public BufferedImage render(ForkJoinPool pool, int tileSize) {
+        if (tileSize < 1) throw new RuntimeException("tile size must be positive");
+        int cols = (width  + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        int[][] bins = bin(tileSize, cols, rows);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pool.invoke(new TileTask(image, bins, tileSize, cols, 0, cols * rows));
+        return image;
+    }
+
+    // for each tile, the indexes (in drawing order) of the primitives that overlap it
+    private int[][] bin(int tileSize, int cols, int rows) {
+        int n = ops.size();
+        int[] count = new int[cols * rows];
+        int[] range = new int[4 * n];
+
+        // find the tiles each primitive overlaps, and count the primitives in
+        // each tile; every primitive off the drawing was culled before it was
+        // recorded, by the canvas or by addImage(), so each one overlaps at
+        // least one tile
+        for (int i = 0; i < n; i++) {
+            Op op = ops.get(i);
+            int c0 = range[4*i]   = Math.max(op.x0, 0) / tileSize;
+            int c1 = range[4*i+1] = Math.min(op.x1, width - 1) / tileSize;
+            int r0 = range[4*i+2] = Math.max(op.y0, 0) / tileSize;
+            int r1 = range[4*i+3] = Math.min(op.y1, height - 1) / tileSize;
+            for (int r = r0; r <= r1; r++)
+                for (int c = c0; c <= c1; c++)
+                    count[r * cols + c]++;
+        }
+
+        int[][] bins = new int[cols * rows][];
+        for (int t = 0; t < bins.length; t++) {
+            bins[t] = new int[count[t]];
+            count[t] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int r = range[4*i+2]; r <= range[4*i+3]; r++) {
+                for (int c = range[4*i]; c <= range[4*i+1]; c++) {
+                    int t = r * cols + c;
+                    bins[t][count[t]++] = i;
+                }
+            }
+        }
+        return bins;
+    }
+
+    // renders tiles lo (inclusive) to hi (exclusive)
+    private final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final BufferedImage image;
+        private final int[][] bins;
+        private final int tileSize, cols, lo, hi;
+
+        TileTask(BufferedImage image, int[][] bins, int tileSize, int cols, int lo, int hi) {
+            this.image = image;
+            this.bins = bins;
+            this.tileSize = tileSize;
+            this.cols = cols;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TileTask(image, bins, tileSize, cols, lo, mid),
+                          new TileTask(image, bins, tileSize, cols, mid, hi));
+                return;
+            }
+            int tx = (lo % cols) * tileSize;
+            int ty = (lo / cols) * tileSize;
+            int tw = Math.min(tileSize, width  - tx);
+            int th = Math.min(tileSize, height - ty);
+
+            // rasterize into a tile-sized image, then copy into the shared image
+            BufferedImage tile = new BufferedImage(tw, th, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = tile.createGraphics();
+            g.setColor(DEFAULT_CLEAR_COLOR);
+            g.fillRect(0, 0, tw, th);
+            DrawCanvas.addHints(g);
+            g.translate(-tx, -ty);
+            g.clipRect(tx, ty, tw, th);
+            for (int i : bins[lo]) replay(g, ops.get(i));
+            g.dispose();
+
+            int[] rgb = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+            image.getRaster().setDataElements(tx, ty, tw, th, rgb);
+        }
+    }
+
+
+    /**
+     * Benchmark: draws n random filled circles and lines (default 1,000,000)
+     * on a size-by-size canvas (default 4096) immediately, then records the
+     * same drawing from the canvas into a display list and renders it in
+     * one pass and in parallel tiles (default 256 pixels), and reports the
+     * times and the number of pixels of each rendering that differ from
+     * the image drawn immediately.
+     * @param args optional n, size, and tile size
+     */
+    public static void main(String[] args) {
+        int n    = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+        int tile = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TILE_SIZE;
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] r = new double[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+            r[i] = 0.0005 + 0.002 * random.nextDouble();
+        }
+
+        for (int rep = 0; rep < 3; rep++) {
+            long start = System.nanoTime();
+            DrawCanvas canvas = new DrawCanvas(size, size);
+            draw(canvas, x, y, r);
+            double immediate = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            DisplayList list = new DisplayList(size, size);
+            canvas.startRecording(list);
+            draw(canvas, x, y, r);
+            canvas.stopRecording();
+            double record = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            BufferedImage one = list.render();
+            double serial = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            BufferedImage tiled = list.render(ForkJoinPool.commonPool(), tile);
+            double parallel = (System.nanoTime() - start) / 1e9;
+
+            BufferedImage drawn = canvas.getImage();
+            System.out.printf("immediate %.3f s, record %.3f s, render %.3f s, tiled (%d threads) %.3f s, "
+                              + "%d and %d pixels differ from immediate%n",
+                              immediate, record, serial, ForkJoinPool.commonPool().getParallelism(), parallel,
+                              differ(drawn, one), differ(drawn, tiled));
+        }
+    }
+
+    // draw the benchmark's circles and lines on the given canvas
+    private static void draw(DrawCanvas canvas, double[] x, double[] y, double[] r) {
+        Color[] colors = { Color.RED, Color.BLUE, Color.GREEN, Color.BLACK };
+        for (int i = 0; i < x.length; i++) {
+            canvas.setPenColor(colors[i & 3]);
+            if ((i & 7) == 0) canvas.line(x[i], y[i], y[i], x[i]);
+            else canvas.filledCircle(x[i], y[i], r[i]);
+        }
+    }
+
+    // the number of pixels that differ between two images of the same size
+    private static int differ(BufferedImage a, BufferedImage b) {
+        int[] p = ((DataBufferInt) a.getRaster().getDataBuffer()).getData();
+        int[] q = ((DataBufferInt) b.getRaster().getDataBuffer()).getData();
+        int count = 0;
+        for (int i = 0; i < p.length; i++)
+            if (p[i] != q[i]) count++;
+        return count;
+    }
+}
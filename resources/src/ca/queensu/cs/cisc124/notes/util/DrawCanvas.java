@@ -0,0 +1,1587 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac DrawCanvas.java
+ *  Execution:    java DrawCanvas [calls]
+ *
+ *  An offscreen drawing canvas. Each canvas owns its own image, graphics
+ *  context, pen, font, and coordinate system, so different canvases can
+ *  be drawn on by different threads at the same time. StdDraw draws
+ *  on a single default canvas.
+ *
+ *  Remarks
+ *  -------
+ *    -  a canvas is not itself thread-safe; use one canvas per thread
+ *    -  while recording, the drawing methods add primitives to a
+ *       DisplayList instead of drawing on the image
+ *
+ *************************************************************************/
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ *  <i>Drawing canvas</i>. This class provides the drawing methods of
+ *  {@link StdDraw} on an offscreen image owned by the canvas. Unlike
+ *  {@link StdDraw}, which has a single drawing shared by the whole program,
+ *  any number of canvases can be created and each can be drawn on by its
+ *  own thread. A canvas never displays anything on screen; use
+ *  <tt>getImage()</tt> or <tt>save()</tt> to get the drawing.
+ *  <p>
+ *  A canvas is not safe for use by more than one thread at a time.
+ */
+public class DrawCanvas {
+
+    // default colors
+    private static final Color DEFAULT_PEN_COLOR   = Color.BLACK;
+    private static final Color DEFAULT_CLEAR_COLOR = Color.WHITE;
+
+    // default canvas size is DEFAULT_SIZE-by-DEFAULT_SIZE
+    static final int DEFAULT_SIZE = 512;
+
+    // default pen radius
+    private static final double DEFAULT_PEN_RADIUS = 0.002;
+
+    // boundary of drawing canvas, 5% border
+    private static final double BORDER = 0.05;
+    private static final double DEFAULT_XMIN = 0.0;
+    private static final double DEFAULT_XMAX = 1.0;
+    private static final double DEFAULT_YMIN = 0.0;
+    private static final double DEFAULT_YMAX = 1.0;
+
+    // default font
+    private static final Font DEFAULT_FONT = new Font("SansSerif", Font.PLAIN, 16);
+
+    // size of the canvas in pixels
+    private final int width;
+    private final int height;
+
+    // current pen color, pen radius, and font
+    private Color penColor;
+    private double penRadius;
+    private Font font;
+
+    // boundary of the canvas in user coordinates, and the mapping from
+    // user coordinates to pixels that it gives
+    private double xmin, ymin, xmax, ymax;
+    private PixelTransform transform;
+
+    // the image drawn on and its graphics context
+    private final BufferedImage image;
+    private final Graphics2D g;
+
+    // the pixels of the image, one ARGB int per pixel in row-major order;
+    // null until first needed, since taking them stops Java2D from caching
+    // the image in video memory
+    private int[] raster;
+
+    // scratch arrays of pixel coordinates for batched drawing
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int[] pxs = new int[0];
+    private int[] pys = new int[0];
+
+    // bounding box of the pixels changed since the dirty region was cleared
+    // (empty if dirtyX0 > dirtyX1)
+    private int dirtyX0, dirtyY0, dirtyX1 = -1, dirtyY1 = -1;
+
+    // bounds in pixels of the last primitive passed to cull()
+    private double boundsX0, boundsY0, boundsX1, boundsY1;
+
+    // number of primitives drawn, and skipped because they were off the
+    // canvas, since the counts were last reset
+    private long drawn, culled;
+
+    // the display list that primitives are added to instead of being drawn
+    // on the image, or null if this canvas is not recording
+    private DisplayList recording;
+
+    // shapes reused by every drawing method, so that drawing creates no garbage
+    private final Ellipse2D.Double ellipseShape = new Ellipse2D.Double();
+    private final Line2D.Double lineShape = new Line2D.Double();
+    private final Rectangle2D.Double rectangleShape = new Rectangle2D.Double();
+    private final Arc2D.Double arcShape = new Arc2D.Double(Arc2D.OPEN);
+    private final GeneralPath pathShape = new GeneralPath();
+    private final Rectangle2D.Double pathBounds = new Rectangle2D.Double();
+
+    /**
+     * Create a canvas of the default size 512-by-512 pixels.
+     */
+    public DrawCanvas() {
+        this(DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a canvas of w-by-h pixels. The canvas is cleared to white,
+     * and uses the default pen, font, and scale.
+     *
+     * @param w the width as a number of pixels
+     * @param h the height as a number of pixels
+     * @throws RuntimeException if the width or height is 0 or negative
+     */
+    public DrawCanvas(int w, int h) {
+        if (w < 1 || h < 1) throw new RuntimeException("width and height must be positive");
+        width = w;
+        height = h;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        setXscale();
+        setYscale();
+        setPenColor();
+        setPenRadius();
+        setFont();
+        clear();
+        addHints(g);
+    }
+
+    // add antialiasing; a DisplayList renders with the same hints
+    static void addHints(Graphics2D g) {
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING,
+                                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.addRenderingHints(hints);
+    }
+
+    /**
+     * Get the width of this canvas in pixels.
+     * @return the width of this canvas in pixels
+     */
+    public int width() { return width; }
+
+    /**
+     * Get the height of this canvas in pixels.
+     * @return the height of this canvas in pixels
+     */
+    public int height() { return height; }
+
+    /**
+     * Get the image that this canvas draws on.
+     * @return the image that this canvas draws on
+     */
+    public BufferedImage getImage() { return image; }
+
+
+   /*************************************************************************
+    *  User and screen coordinate systems
+    *************************************************************************/
+
+    /**
+     * Set the x-scale to be the default (between 0.0 and 1.0).
+     */
+    public void setXscale() { setXscale(DEFAULT_XMIN, DEFAULT_XMAX); }
+
+    /**
+     * Set the y-scale to be the default (between 0.0 and 1.0).
+     */
+    public void setYscale() { setYscale(DEFAULT_YMIN, DEFAULT_YMAX); }
+
+    /**
+     * Set the x-scale (a 10% border is added to the values)
+     * @param min the minimum value of the x-scale
+     * @param max the maximum value of the x-scale
+     */
+    public void setXscale(double min, double max) {
+        double size = max - min;
+        xmin = min - BORDER * size;
+        xmax = max + BORDER * size;
+        transform = new PixelTransform(width, height, xmin, xmax, ymin, ymax);
+    }
+
+    /**
+     * Set the y-scale (a 10% border is added to the values).
+     * @param min the minimum value of the y-scale
+     * @param max the maximum value of the y-scale
+     */
+    public void setYscale(double min, double max) {
+        double size = max - min;
+        ymin = min - BORDER * size;
+        ymax = max + BORDER * size;
+        transform = new PixelTransform(width, height, xmin, xmax, ymin, ymax);
+    }
+
+    /**
+     * Set the x-scale and y-scale (a 10% border is added to the values)
+     * @param min the minimum value of the x- and y-scales
+     * @param max the maximum value of the x- and y-scales
+     */
+    public void setScale(double min, double max) {
+        setXscale(min, max);
+        setYscale(min, max);
+    }
+
+    /**
+     * Get the mapping from user coordinates to pixels given by the current
+     * scale. The transform does not change when the scale is changed later;
+     * call this method again to get the new one.
+     * @return the current pixel transform
+     */
+    public PixelTransform getTransform() { return transform; }
+
+    // helper functions that scale from user coordinates to screen coordinates and back
+    double  scaleX(double x) { return transform.x(x);      }
+    double  scaleY(double y) { return transform.y(y);      }
+    double factorX(double w) { return transform.width(w);  }
+    double factorY(double h) { return transform.height(h); }
+    double   userX(double x) { return transform.userX(x);  }
+    double   userY(double y) { return transform.userY(y);  }
+
+
+    /**
+     * Clear the canvas to the default color (white).
+     */
+    public void clear() { clear(DEFAULT_CLEAR_COLOR); }
+    /**
+     * Clear the canvas to the given color.
+     * @param color the Color to make the background
+     */
+    public void clear(Color color) {
+        if (recording != null) {
+            rectangleShape.setFrame(0, 0, width, height);
+            recording.addFill(rectangleShape, color, 0, 0, width, height);
+            return;
+        }
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.setColor(penColor);
+        markDirty(0, 0, width, height);
+    }
+
+    /**
+     * Get the current pen radius.
+     * @return the pen radius
+     */
+    public double getPenRadius() { return penRadius; }
+
+    /**
+     * Set the pen size to the default (.002).
+     */
+    public void setPenRadius() { setPenRadius(DEFAULT_PEN_RADIUS); }
+    /**
+     * Set the radius of the pen to the given size.
+     * @param r the radius of the pen
+     * @throws RuntimeException if r is negative
+     */
+    public void setPenRadius(double r) {
+        if (r < 0) throw new RuntimeException("pen radius must be positive");
+        penRadius = r * DEFAULT_SIZE;
+        BasicStroke stroke = new BasicStroke((float) penRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        g.setStroke(stroke);
+    }
+
+    /**
+     * Get the current pen color.
+     *
+     * @return the current pen color
+     */
+    public Color getPenColor() { return penColor; }
+
+    /**
+     * Set the pen color to the default color (black).
+     */
+    public void setPenColor() { setPenColor(DEFAULT_PEN_COLOR); }
+    /**
+     * Set the pen color to the given color.
+     * @param color the Color to make the pen
+     */
+    public void setPenColor(Color color) {
+        penColor = color;
+        g.setColor(penColor);
+    }
+
+    /**
+     * Get the current font.
+     *
+     * @return the current font
+     */
+    public Font getFont() { return font; }
+
+    /**
+     * Set the font to the default font (sans serif, 16 point).
+     */
+    public void setFont() { setFont(DEFAULT_FONT); }
+
+    /**
+     * Set the font to the given value.
+     * @param f the font to make text
+     */
+    public void setFont(Font f) { font = f; }
+
+
+   /*************************************************************************
+    *  Dirty region.
+    *************************************************************************/
+
+    /**
+     * Get the smallest rectangle, in pixels, that contains every pixel
+     * changed by a drawing method since the dirty region was last cleared.
+     * The rectangle may be a little larger than needed, and is empty if
+     * nothing has been drawn.
+     * @return the dirty region
+     */
+    public Rectangle getDirtyRegion() {
+        if (dirtyX0 > dirtyX1) return new Rectangle();
+        return new Rectangle(dirtyX0, dirtyY0, dirtyX1 - dirtyX0, dirtyY1 - dirtyY0);
+    }
+
+    /**
+     * Clear the dirty region, for example after the changed pixels have
+     * been copied to the screen.
+     */
+    public void clearDirtyRegion() {
+        dirtyX0 = dirtyY0 = 0;
+        dirtyX1 = dirtyY1 = -1;
+    }
+
+    // add the pixels from (x0, y0) to (x1, y1) to the dirty region; nothing
+    // on the image changes while recording
+    void markDirty(double x0, double y0, double x1, double y1) {
+        if (recording != null) return;
+        int ix0 = Math.max(0, (int) Math.floor(x0));
+        int iy0 = Math.max(0, (int) Math.floor(y0));
+        int ix1 = Math.min(width,  (int) Math.ceil(x1));
+        int iy1 = Math.min(height, (int) Math.ceil(y1));
+        if (ix0 >= ix1 || iy0 >= iy1) return;
+        if (dirtyX0 > dirtyX1) {
+            dirtyX0 = ix0;
+            dirtyY0 = iy0;
+            dirtyX1 = ix1;
+            dirtyY1 = iy1;
+        }
+        else {
+            if (ix0 < dirtyX0) dirtyX0 = ix0;
+            if (iy0 < dirtyY0) dirtyY0 = iy0;
+            if (ix1 > dirtyX1) dirtyX1 = ix1;
+            if (iy1 > dirtyY1) dirtyY1 = iy1;
+        }
+    }
+
+    // mark as dirty the pixels that a w-by-h rectangle centered on (xs, ys)
+    // may touch when rotated by any angle
+    private void markDirtyRotated(double xs, double ys, double w, double h) {
+        double r = Math.hypot(w, h) / 2 + 1;
+        markDirty(xs - r, ys - r, xs + r, ys + r);
+    }
+
+
+   /*************************************************************************
+    *  Culling.
+    *************************************************************************/
+
+    /**
+     * Get the number of primitives drawn since the counts were last reset.
+     * Each element of a batch, such as each point drawn by <tt>points()</tt>,
+     * counts as one primitive; pixels set directly do not count.
+     * @return the number of primitives drawn
+     */
+    public long drawnCount() { return drawn; }
+
+    /**
+     * Get the number of primitives skipped, without any work by Java2D,
+     * because they were entirely off the canvas, since the counts were last
+     * reset.
+     * @return the number of primitives culled
+     */
+    public long culledCount() { return culled; }
+
+    /**
+     * Set the counts of drawn and culled primitives to 0.
+     */
+    public void resetCounts() {
+        drawn = 0;
+        culled = 0;
+    }
+
+    // set the bounds to the box from (x0, y0) to (x1, y1), in pixels, and
+    // count the primitive in it as culled and return true if the box is
+    // entirely off the canvas, or count it as drawn and return false
+    private boolean cull(double x0, double y0, double x1, double y1) {
+        boundsX0 = x0;
+        boundsY0 = y0;
+        boundsX1 = x1;
+        boundsY1 = y1;
+        if (x1 < 0 || y1 < 0 || x0 >= width || y0 >= height) {
+            culled++;
+            return true;
+        }
+        drawn++;
+        return false;
+    }
+
+    // cull() with the bounds of s widened by pad; the bounds of the reused
+    // shapes are read without creating a rectangle (for an arc, the bounds
+    // of its whole ellipse)
+    private boolean cull(Shape s, double pad) {
+        if (s instanceof RectangularShape) {
+            RectangularShape r = (RectangularShape) s;
+            return cull(r.getMinX() - pad, r.getMinY() - pad, r.getMaxX() + pad, r.getMaxY() + pad);
+        }
+        else if (s instanceof Line2D) {
+            Line2D l = (Line2D) s;
+            return cull(Math.min(l.getX1(), l.getX2()) - pad, Math.min(l.getY1(), l.getY2()) - pad,
+                        Math.max(l.getX1(), l.getX2()) + pad, Math.max(l.getY1(), l.getY2()) + pad);
+        }
+        else {
+            Rectangle2D b = s == pathShape ? pathBounds : s.getBounds2D();
+            return cull(b.getMinX() - pad, b.getMinY() - pad, b.getMaxX() + pad, b.getMaxY() + pad);
+        }
+    }
+
+    // mark as dirty the bounds set by the last call to cull()
+    private void markBounds() {
+        markDirty(boundsX0, boundsY0, boundsX1, boundsY1);
+    }
+
+
+   /*************************************************************************
+    *  Recording into a display list.
+    *************************************************************************/
+
+    /**
+     * Start recording into the given display list. Until <tt>stopRecording()</tt>
+     * is called, the drawing methods for shapes, points, pixels, text,
+     * pictures, and sprites, and <tt>clear()</tt>, add primitives to the list
+     * instead of drawing on this canvas. The primitives have the same pixel
+     * coordinates and pen as when drawing, and are culled and counted the
+     * same way. The methods that set pixels directly can't be recorded.
+     * @param list the display list to record into
+     * @throws RuntimeException if the list is not the same size as this canvas
+     */
+    public void startRecording(DisplayList list) {
+        if (list.width() != width || list.height() != height)
+            throw new RuntimeException("display list must be the same size as the canvas");
+        recording = list;
+    }
+
+    /**
+     * Stop recording, so that the drawing methods draw on this canvas again.
+     * @return the display list that was recorded into, or null if this
+     *         canvas was not recording
+     */
+    public DisplayList stopRecording() {
+        DisplayList list = recording;
+        recording = null;
+        return list;
+    }
+
+    /**
+     * Is this canvas recording into a display list?
+     * @return true if the drawing methods add primitives to a display list
+     */
+    public boolean isRecording() { return recording != null; }
+
+    // throw an exception if this canvas is recording; what is the kind of
+    // drawing that a display list can't hold
+    private void checkNotRecording(String what) {
+        if (recording != null) throw new RuntimeException(what + " can't be recorded in a display list");
+    }
+
+
+   /*************************************************************************
+    *  Drawing geometric shapes.
+    *************************************************************************/
+
+    // draw the outline of s, which has just been passed to cull(), and mark
+    // the pixels it may touch as dirty, or record it
+    private void strokeCulled(Shape s) {
+        if (recording != null) recording.addDraw(s, penColor, g.getStroke(), boundsX0, boundsY0, boundsX1, boundsY1);
+        else {
+            g.draw(s);
+            markBounds();
+        }
+    }
+
+    // fill s, which has just been passed to cull(), and mark the pixels it
+    // may touch as dirty, or record it
+    private void fillCulled(Shape s) {
+        if (recording != null) recording.addFill(s, penColor, boundsX0, boundsY0, boundsX1, boundsY1);
+        else {
+            g.fill(s);
+            markBounds();
+        }
+    }
+
+    // draw the outline of a shape, unless it is off the canvas, and mark
+    // the pixels it may touch as dirty
+    private void drawShape(Shape s) {
+        if (cull(s, penRadius / 2 + 1)) return;
+        strokeCulled(s);
+    }
+
+    // fill a shape, unless it is off the canvas, and mark the pixels it may
+    // touch as dirty
+    private void fillShape(Shape s) {
+        if (cull(s, 1)) return;
+        fillCulled(s);
+    }
+
+    // draw a dot the size of the pen centered on pixel coordinates (xs, ys)
+    private void dot(double xs, double ys) {
+        double r = penRadius;
+        if (r <= 1) pixelAt((int) Math.floor(xs + 0.5), (int) Math.floor(ys + 0.5));
+        else {
+            ellipseShape.setFrame(xs - r/2, ys - r/2, r, r);
+            fillShape(ellipseShape);
+        }
+    }
+
+    // draw the pixel in column xs and row ys, unless it is off the canvas
+    private void pixelAt(int xs, int ys) {
+        if (xs < 0 || ys < 0 || xs >= width || ys >= height) {
+            culled++;
+            return;
+        }
+        drawn++;
+        if (recording != null) recording.addPixel(xs, ys, penColor);
+        else {
+            g.fillRect(xs, ys, 1, 1);
+            markDirty(xs, ys, xs + 1, ys + 1);
+        }
+    }
+
+    /**
+     * Draw a line from (x0, y0) to (x1, y1).
+     * @param x0 the x-coordinate of the starting point
+     * @param y0 the y-coordinate of the starting point
+     * @param x1 the x-coordinate of the destination point
+     * @param y1 the y-coordinate of the destination point
+     */
+    public void line(double x0, double y0, double x1, double y1) {
+        double xs0 = scaleX(x0), ys0 = scaleY(y0);
+        double xs1 = scaleX(x1), ys1 = scaleY(y1);
+
+        // shorter than a pixel: draw a dot
+        if (Math.abs(xs1 - xs0) < 1 && Math.abs(ys1 - ys0) < 1) {
+            dot((xs0 + xs1) / 2, (ys0 + ys1) / 2);
+            return;
+        }
+        lineShape.setLine(xs0, ys0, xs1, ys1);
+        drawShape(lineShape);
+    }
+
+    /**
+     * Draw one pixel at (x, y).
+     * @param x the x-coordinate of the pixel
+     * @param y the y-coordinate of the pixel
+     */
+    private void pixel(double x, double y) {
+        pixelAt(transform.pixelX(x), transform.pixelY(y));
+    }
+
+    /**
+     * Draw a point at (x, y).
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     */
+    public void point(double x, double y) {
+        dot(scaleX(x), scaleY(y));
+    }
+
+    /**
+     * Draw a circle of radius r, centered on (x, y).
+     * @param x the x-coordinate of the center of the circle
+     * @param y the y-coordinate of the center of the circle
+     * @param r the radius of the circle
+     * @throws RuntimeException if the radius of the circle is negative
+     */
+    public void circle(double x, double y, double r) {
+        if (r < 0) throw new RuntimeException("circle radius can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            ellipseShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            drawShape(ellipseShape);
+        }
+    }
+
+    /**
+     * Draw filled circle of radius r, centered on (x, y).
+     * @param x the x-coordinate of the center of the circle
+     * @param y the y-coordinate of the center of the circle
+     * @param r the radius of the circle
+     * @throws RuntimeException if the radius of the circle is negative
+     */
+    public void filledCircle(double x, double y, double r) {
+        if (r < 0) throw new RuntimeException("circle radius can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            ellipseShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            fillShape(ellipseShape);
+        }
+    }
+
+
+    /**
+     * Draw an ellipse with given semimajor and semiminor axes, centered on (x, y).
+     * @param x the x-coordinate of the center of the ellipse
+     * @param y the y-coordinate of the center of the ellipse
+     * @param semiMajorAxis is the semimajor axis of the ellipse
+     * @param semiMinorAxis is the semiminor axis of the ellipse
+     * @throws RuntimeException if either of the axes are negative
+     */
+    public void ellipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
+        if (semiMajorAxis < 0) throw new RuntimeException("ellipse semimajor axis can't be negative");
+        if (semiMinorAxis < 0) throw new RuntimeException("ellipse semiminor axis can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*semiMajorAxis);
+        double hs = factorY(2*semiMinorAxis);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            ellipseShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            drawShape(ellipseShape);
+        }
+    }
+
+    /**
+     * Draw a filled ellipse with given semimajor and semiminor axes, centered on (x, y).
+     * @param x the x-coordinate of the center of the ellipse
+     * @param y the y-coordinate of the center of the ellipse
+     * @param semiMajorAxis is the semimajor axis of the ellipse
+     * @param semiMinorAxis is the semiminor axis of the ellipse
+     * @throws RuntimeException if either of the axes are negative
+     */
+    public void filledEllipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
+        if (semiMajorAxis < 0) throw new RuntimeException("ellipse semimajor axis can't be negative");
+        if (semiMinorAxis < 0) throw new RuntimeException("ellipse semiminor axis can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*semiMajorAxis);
+        double hs = factorY(2*semiMinorAxis);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            ellipseShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            fillShape(ellipseShape);
+        }
+    }
+
+
+    /**
+     * Draw an arc of radius r, centered on (x, y), from angle1 to angle2 (in degrees).
+     * @param x the x-coordinate of the center of the circle
+     * @param y the y-coordinate of the center of the circle
+     * @param r the radius of the circle
+     * @param angle1 the starting angle. 0 would mean an arc beginning at 3 o'clock.
+     * @param angle2 the angle at the end of the arc. For example, if
+     *        you want a 90 degree arc, then angle2 should be angle1 + 90.
+     * @throws RuntimeException if the radius of the circle is negative
+     */
+    public void arc(double x, double y, double r, double angle1, double angle2) {
+        if (r < 0) throw new RuntimeException("arc radius can't be negative");
+        while (angle2 < angle1) angle2 += 360;
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            arcShape.setArc(xs - ws/2, ys - hs/2, ws, hs, angle1, angle2 - angle1, Arc2D.OPEN);
+            drawShape(arcShape);
+        }
+    }
+
+    /**
+     * Draw a square of side length 2r, centered on (x, y).
+     * @param x the x-coordinate of the center of the square
+     * @param y the y-coordinate of the center of the square
+     * @param r radius is half the length of any side of the square
+     * @throws RuntimeException if r is negative
+     */
+    public void square(double x, double y, double r) {
+        if (r < 0) throw new RuntimeException("square side length can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            rectangleShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            drawShape(rectangleShape);
+        }
+    }
+
+    /**
+     * Draw a filled square of side length 2r, centered on (x, y).
+     * @param x the x-coordinate of the center of the square
+     * @param y the y-coordinate of the center of the square
+     * @param r radius is half the length of any side of the square
+     * @throws RuntimeException if r is negative
+     */
+    public void filledSquare(double x, double y, double r) {
+        if (r < 0) throw new RuntimeException("square side length can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            rectangleShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            fillShape(rectangleShape);
+        }
+    }
+
+
+    /**
+     * Draw a rectangle of given half width and half height, centered on (x, y).
+     * @param x the x-coordinate of the center of the rectangle
+     * @param y the y-coordinate of the center of the rectangle
+     * @param halfWidth is half the width of the rectangle
+     * @param halfHeight is half the height of the rectangle
+     * @throws RuntimeException if halfWidth or halfHeight is negative
+     */
+    public void rectangle(double x, double y, double halfWidth, double halfHeight) {
+        if (halfWidth  < 0) throw new RuntimeException("half width can't be negative");
+        if (halfHeight < 0) throw new RuntimeException("half height can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*halfWidth);
+        double hs = factorY(2*halfHeight);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            rectangleShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            drawShape(rectangleShape);
+        }
+    }
+
+    /**
+     * Draw a filled rectangle of given half width and half height, centered on (x, y).
+     * @param x the x-coordinate of the center of the rectangle
+     * @param y the y-coordinate of the center of the rectangle
+     * @param halfWidth is half the width of the rectangle
+     * @param halfHeight is half the height of the rectangle
+     * @throws RuntimeException if halfWidth or halfHeight is negative
+     */
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        if (halfWidth  < 0) throw new RuntimeException("half width can't be negative");
+        if (halfHeight < 0) throw new RuntimeException("half height can't be negative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*halfWidth);
+        double hs = factorY(2*halfHeight);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            rectangleShape.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+            fillShape(rectangleShape);
+        }
+    }
+
+
+    // set the reused path to the polygon with the given (x[i], y[i]) coordinates,
+    // and pathBounds to its bounds
+    private GeneralPath polygonPath(double[] x, double[] y) {
+        int N = x.length;
+        GeneralPath path = pathShape;
+        path.reset();
+        float x0 = (float) scaleX(x[0]), y0 = (float) scaleY(y[0]);
+        float x1 = x0, y1 = y0;
+        path.moveTo(x0, y0);
+        for (int i = 0; i < N; i++) {
+            float xs = (float) scaleX(x[i]);
+            float ys = (float) scaleY(y[i]);
+            path.lineTo(xs, ys);
+            x0 = Math.min(x0, xs);
+            y0 = Math.min(y0, ys);
+            x1 = Math.max(x1, xs);
+            y1 = Math.max(y1, ys);
+        }
+        path.closePath();
+        pathBounds.setFrameFromDiagonal(x0, y0, x1, y1);
+        return path;
+    }
+
+    /**
+     * Draw a polygon with the given (x[i], y[i]) coordinates.
+     * @param x an array of all the x-coordindates of the polygon
+     * @param y an array of all the y-coordindates of the polygon
+     */
+    public void polygon(double[] x, double[] y) {
+        GeneralPath path = polygonPath(x, y);
+
+        // smaller than a pixel: draw a dot, like a short line
+        if (pathBounds.getWidth() < 1 && pathBounds.getHeight() < 1)
+            dot(pathBounds.getCenterX(), pathBounds.getCenterY());
+        else drawShape(path);
+    }
+
+    /**
+     * Draw a filled polygon with the given (x[i], y[i]) coordinates.
+     * @param x an array of all the x-coordindates of the polygon
+     * @param y an array of all the y-coordindates of the polygon
+     */
+    public void filledPolygon(double[] x, double[] y) {
+        GeneralPath path = polygonPath(x, y);
+        if (pathBounds.getWidth() < 1 && pathBounds.getHeight() < 1) polygonPixel();
+        else fillShape(path);
+    }
+
+    // draw a filled polygon smaller than a pixel as the pixel at its center
+    private void polygonPixel() {
+        pixelAt((int) Math.floor(pathBounds.getCenterX() + 0.5), (int) Math.floor(pathBounds.getCenterY() + 0.5));
+    }
+
+
+   /*************************************************************************
+    *  Drawing many shapes at once.
+    *************************************************************************/
+
+    // throw an exception unless every array has length n
+    private static void checkLengths(int n, double[]... arrays) {
+        for (double[] a : arrays)
+            if (a.length != n) throw new RuntimeException("arrays must have the same length");
+    }
+
+    /**
+     * Draw a filled circle of radius r[i] centered on (x[i], y[i]) for each i.
+     * This is the same as calling <tt>filledCircle()</tt> for each circle, but faster.
+     * @param x the x-coordinates of the centers of the circles
+     * @param y the y-coordinates of the centers of the circles
+     * @param r the radii of the circles
+     * @throws RuntimeException if the arrays have different lengths or
+     *         if the radius of a circle is negative
+     */
+    public void filledCircles(double[] x, double[] y, double[] r) {
+        int n = x.length;
+        checkLengths(n, y, r);
+        PixelTransform t = transform;
+        double fx = t.width(1);
+        double fy = t.height(1);
+        Ellipse2D.Double e = ellipseShape;
+        for (int i = 0; i < n; i++) {
+            if (r[i] < 0) throw new RuntimeException("circle radius can't be negative");
+            double xs = t.x(x[i]);
+            double ys = t.y(y[i]);
+            double ws = fx * 2 * r[i];
+            double hs = fy * 2 * r[i];
+            if (ws <= 1 && hs <= 1) pixelAt((int) Math.floor(xs + 0.5), (int) Math.floor(ys + 0.5));
+            else if (!cull(xs - ws/2 - 1, ys - hs/2 - 1, xs + ws/2 + 1, ys + hs/2 + 1)) {
+                e.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+                fillCulled(e);
+            }
+        }
+    }
+
+    /**
+     * Draw a filled circle of radius r centered on (x[i], y[i]) for each i.
+     * This is the same as calling <tt>filledCircle()</tt> for each circle, but faster.
+     * @param x the x-coordinates of the centers of the circles
+     * @param y the y-coordinates of the centers of the circles
+     * @param r the radius of every circle
+     * @throws RuntimeException if the arrays have different lengths or
+     *         if the radius is negative
+     */
+    public void filledCircles(double[] x, double[] y, double r) {
+        if (r < 0) throw new RuntimeException("circle radius can't be negative");
+        int n = x.length;
+        checkLengths(n, y);
+        PixelTransform t = transform;
+        double ws = factorX(2*r);
+        double hs = factorY(2*r);
+        Ellipse2D.Double e = ellipseShape;
+        for (int i = 0; i < n; i++) {
+            double xs = t.x(x[i]);
+            double ys = t.y(y[i]);
+            if (ws <= 1 && hs <= 1) pixelAt((int) Math.floor(xs + 0.5), (int) Math.floor(ys + 0.5));
+            else if (!cull(xs - ws/2 - 1, ys - hs/2 - 1, xs + ws/2 + 1, ys + hs/2 + 1)) {
+                e.setFrame(xs - ws/2, ys - hs/2, ws, hs);
+                fillCulled(e);
+            }
+        }
+    }
+
+    /**
+     * Draw a line from (x0[i], y0[i]) to (x1[i], y1[i]) for each i.
+     * This is the same as calling <tt>line()</tt> for each line, but faster.
+     * @param x0 the x-coordinates of the starting points
+     * @param y0 the y-coordinates of the starting points
+     * @param x1 the x-coordinates of the destination points
+     * @param y1 the y-coordinates of the destination points
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public void lines(double[] x0, double[] y0, double[] x1, double[] y1) {
+        int n = x0.length;
+        checkLengths(n, y0, x1, y1);
+        PixelTransform t = transform;
+        double pad = penRadius / 2 + 1;
+        Line2D.Double l = lineShape;
+        for (int i = 0; i < n; i++) {
+            double xs0 = t.x(x0[i]), ys0 = t.y(y0[i]);
+            double xs1 = t.x(x1[i]), ys1 = t.y(y1[i]);
+            if (Math.abs(xs1 - xs0) < 1 && Math.abs(ys1 - ys0) < 1) dot((xs0 + xs1) / 2, (ys0 + ys1) / 2);
+            else if (!cull(Math.min(xs0, xs1) - pad, Math.min(ys0, ys1) - pad,
+                           Math.max(xs0, xs1) + pad, Math.max(ys0, ys1) + pad)) {
+                l.setLine(xs0, ys0, xs1, ys1);
+                strokeCulled(l);
+            }
+        }
+    }
+
+    /**
+     * Draw a point at (x[i], y[i]) for each i.
+     * This is the same as calling <tt>point()</tt> for each point, but faster.
+     * @param x the x-coordinates of the points
+     * @param y the y-coordinates of the points
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public void points(double[] x, double[] y) {
+        int n = x.length;
+        checkLengths(n, y);
+        if (recording != null) {
+            for (int i = 0; i < n; i++) point(x[i], y[i]);
+            return;
+        }
+        PixelTransform t = transform;
+        double r = penRadius;
+        Ellipse2D.Double e = ellipseShape;
+
+        // the part of the plane, in user coordinates, where a point can touch
+        // the canvas; points outside it are skipped before being transformed
+        double pad = Math.max(r, 1) / 2 + 1;
+        double ux0 = t.userX(-pad), ux1 = t.userX(width + pad);
+        double uy0 = t.userY(-pad), uy1 = t.userY(height + pad);
+        double xlo = Math.min(ux0, ux1), xhi = Math.max(ux0, ux1);
+        double ylo = Math.min(uy0, uy1), yhi = Math.max(uy0, uy1);
+
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(x[i] >= xlo && x[i] <= xhi && y[i] >= ylo && y[i] <= yhi)) continue;
+            count++;
+            double xs = t.x(x[i]);
+            double ys = t.y(y[i]);
+            if (r <= 1) g.fillRect((int) Math.floor(xs + 0.5), (int) Math.floor(ys + 0.5), 1, 1);
+            else {
+                e.setFrame(xs - r/2, ys - r/2, r, r);
+                g.fill(e);
+            }
+            markDirty(xs - r/2 - 1, ys - r/2 - 1, xs + r/2 + 1, ys + r/2 + 1);
+        }
+        drawn += count;
+        culled += n - count;
+    }
+
+    /**
+     * Draw one pixel at (x[i], y[i]) for each i, whatever the pen radius.
+     * Each point is snapped to the nearest pixel.
+     * @param x the x-coordinates of the pixels
+     * @param y the y-coordinates of the pixels
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public void pixels(double[] x, double[] y) {
+        int n = x.length;
+        checkLengths(n, y);
+        growPixelArrays(n);
+        transform.snapToPixels(x, y, pxs, pys, n);
+        fillPixels(n);
+    }
+
+    /**
+     * Draw one pixel at (x[i], y[i]) for each i, whatever the pen radius.
+     * This is the same as <tt>pixels()</tt> with double coordinates, but
+     * maps the points to pixels using integer arithmetic only, which is
+     * faster for data that is already integer, such as grid positions or
+     * counts.
+     * @param x the x-coordinates of the pixels
+     * @param y the y-coordinates of the pixels
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public void pixels(int[] x, int[] y) {
+        int n = x.length;
+        if (y.length != n) throw new RuntimeException("arrays must have the same length");
+        growPixelArrays(n);
+        transform.snapToPixels(x, y, pxs, pys, n);
+        fillPixels(n);
+    }
+
+    // make the scratch pixel arrays hold at least n points
+    private void growPixelArrays(int n) {
+        if (pxs.length < n) {
+            pxs = new int[n];
+            pys = new int[n];
+        }
+    }
+
+    // fill (or record) the pixels at (pxs[i], pys[i]) for i < n
+    private void fillPixels(int n) {
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            int xs = pxs[i], ys = pys[i];
+            if (xs < 0 || ys < 0 || xs >= width || ys >= height) continue;
+            count++;
+            if (recording != null) recording.addPixel(xs, ys, penColor);
+            else g.fillRect(xs, ys, 1, 1);
+            if (xs < x0) x0 = xs;
+            if (xs > x1) x1 = xs;
+            if (ys < y0) y0 = ys;
+            if (ys > y1) y1 = ys;
+        }
+        drawn += count;
+        culled += n - count;
+        if (count > 0) markDirty(x0, y0, x1 + 1.0, y1 + 1.0);
+    }
+
+
+
+   /*************************************************************************
+    *  Direct access to pixels.
+    *************************************************************************/
+
+    // the pixels of the image
+    private int[] raster() {
+        if (raster == null) raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        return raster;
+    }
+
+    /**
+     * Get the color of the pixel in column x and row y, counting from the
+     * top left corner of the canvas.
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the color of the pixel as an ARGB int
+     * @throws IndexOutOfBoundsException if the pixel is not on the canvas
+     */
+    public int getPixel(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height)
+            throw new IndexOutOfBoundsException("pixel (" + x + ", " + y + ") is not on the canvas");
+        return raster()[y * width + x];
+    }
+
+    /**
+     * Set the pixel in column x and row y, counting from the top left corner
+     * of the canvas, to the given color. The pixel is replaced, not blended
+     * with the new color, and the pen color is not used. Nothing is drawn if
+     * the pixel is not on the canvas.
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @param argb the color as an ARGB int, e.g., 0xFFFF0000 for opaque red
+     */
+    public void setPixel(int x, int y, int argb) {
+        checkNotRecording("setting pixels");
+        if (x < 0 || x >= width || y < 0 || y >= height) return;
+        raster()[y * width + x] = argb;
+        markDirty(x, y, x + 1, y + 1);
+    }
+
+    /**
+     * Set n pixels of row y, starting at column x and going right, to the
+     * given color. The pixels are replaced, not blended with the new color.
+     * The part of the span that is not on the canvas is ignored.
+     * @param x the column of the first pixel
+     * @param y the row of the pixels
+     * @param n the number of pixels
+     * @param argb the color as an ARGB int
+     */
+    public void fillSpan(int x, int y, int n, int argb) {
+        checkNotRecording("setting pixels");
+        if (y < 0 || y >= height) return;
+        int x0 = Math.max(x, 0);
+        int x1 = (int) Math.min((long) x + n, width);
+        if (x0 >= x1) return;
+        Arrays.fill(raster(), y * width + x0, y * width + x1, argb);
+        markDirty(x0, y, x1, y + 1);
+    }
+
+    /**
+     * Copy a w-by-h block of colors to the canvas with its top left corner
+     * at column x and row y. The color of pixel (x + i, y + j) is
+     * argb[offset + j * scansize + i]. The pixels are replaced, not blended
+     * with the new colors. The part of the block that is not on the canvas
+     * is ignored.
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param argb the colors as ARGB ints
+     * @param offset the index in argb of the top left corner of the block
+     * @param scansize the distance in argb from one row of the block to the next
+     * @throws IndexOutOfBoundsException if a color of the block that is
+     *         on the canvas is not in argb
+     */
+    public void setPixels(int x, int y, int w, int h, int[] argb, int offset, int scansize) {
+        checkNotRecording("setting pixels");
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = (int) Math.min((long) x + w, width), y1 = (int) Math.min((long) y + h, height);
+        if (x0 >= x1 || y0 >= y1) return;
+        int[] pixels = raster();
+        for (int row = y0; row < y1; row++)
+            System.arraycopy(argb, offset + (row - y) * scansize + (x0 - x), pixels, row * width + x0, x1 - x0);
+        markDirty(x0, y0, x1, y1);
+    }
+
+    /**
+     * Copy the colors of a w-by-h block of the canvas with its top left
+     * corner at column x and row y into an array. The color of pixel
+     * (x + i, y + j) is put in argb[offset + j * scansize + i].
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param argb the array to hold the colors as ARGB ints
+     * @param offset the index in argb of the top left corner of the block
+     * @param scansize the distance in argb from one row of the block to the next
+     * @throws IndexOutOfBoundsException if the block is not on the canvas
+     *         or does not fit in argb
+     */
+    public void getPixels(int x, int y, int w, int h, int[] argb, int offset, int scansize) {
+        if (x < 0 || y < 0 || w < 0 || h < 0 || (long) x + w > width || (long) y + h > height)
+            throw new IndexOutOfBoundsException("block is not on the canvas");
+        int[] pixels = raster();
+        for (int j = 0; j < h; j++)
+            System.arraycopy(pixels, (y + j) * width + x, argb, offset + j * scansize, w);
+    }
+
+    /**
+     * Color a w-by-h block of the canvas, with its top left corner at column
+     * x and row y, by the given values. Pixel (x + i, y + j) gets the color
+     * of value values[j * w + i]: the range from min to max is divided into
+     * as many equal parts as there are colors in palette, and a value in
+     * part k gets color palette[k]. Values below min get the first color,
+     * and values above max (or NaN) the last. The pixels are replaced, not
+     * blended with the colors. The part of the block that is not on the
+     * canvas is ignored.
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param values the values, in row-major order
+     * @param min the value at the bottom of the range
+     * @param max the value at the top of the range
+     * @param palette the colors as ARGB ints, from min to max
+     * @throws RuntimeException if values has fewer than w * h elements,
+     *         if palette is empty, or if min is not less than max
+     */
+    public void colormap(int x, int y, int w, int h, double[] values, double min, double max, int[] palette) {
+        checkNotRecording("setting pixels");
+        if (values.length < (long) w * h) throw new RuntimeException("not enough values for a " + w + "-by-" + h + " block");
+        if (palette.length == 0) throw new RuntimeException("palette is empty");
+        if (!(min < max)) throw new RuntimeException("min must be less than max");
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = (int) Math.min((long) x + w, width), y1 = (int) Math.min((long) y + h, height);
+        if (x0 >= x1 || y0 >= y1) return;
+        int[] pixels = raster();
+        int last = palette.length - 1;
+        double scale = palette.length / (max - min);
+        for (int row = y0; row < y1; row++) {
+            int from = (row - y) * w - x;
+            int to = row * width;
+            for (int col = x0; col < x1; col++) {
+                double v = (values[from + col] - min) * scale;
+                pixels[to + col] = palette[v < 0 ? 0 : v < last ? (int) v : last];
+            }
+        }
+        markDirty(x0, y0, x1, y1);
+    }
+
+    /**
+     * Create a palette for <tt>colormap()</tt> of n colors that blend
+     * evenly from each of the given colors to the next.
+     * @param n the number of colors in the palette
+     * @param colors the colors to blend, from the bottom of the range to the top
+     * @return the palette as ARGB ints
+     * @throws RuntimeException if n is less than 1 or no colors are given
+     */
+    public static int[] palette(int n, Color... colors) {
+        if (n < 1) throw new RuntimeException("palette must have at least one color");
+        if (colors.length == 0) throw new RuntimeException("no colors given");
+        int[] palette = new int[n];
+        for (int k = 0; k < n; k++) {
+            double t = n == 1 ? 0 : (double) k * (colors.length - 1) / (n - 1);
+            int i = Math.min((int) t, colors.length - 1);
+            int j = Math.min(i + 1, colors.length - 1);
+            double f = t - i;
+            Color a = colors[i], b = colors[j];
+            int alpha = (int) Math.round(a.getAlpha() + f * (b.getAlpha() - a.getAlpha()));
+            int red   = (int) Math.round(a.getRed()   + f * (b.getRed()   - a.getRed()));
+            int green = (int) Math.round(a.getGreen() + f * (b.getGreen() - a.getGreen()));
+            int blue  = (int) Math.round(a.getBlue()  + f * (b.getBlue()  - a.getBlue()));
+            palette[k] = alpha << 24 | red << 16 | green << 8 | blue;
+        }
+        return palette;
+    }
+
+
+   /*************************************************************************
+    *  Drawing images.
+    *************************************************************************/
+
+    // get an image from the given filename, decoding it only the first time
+    static Image getImage(String filename) {
+        return ImageCache.getDefault().get(filename);
+    }
+
+    /**
+     * Draw picture (gif, jpg, or png) centered on (x, y).
+     * @param x the center x-coordinate of the image
+     * @param y the center y-coordinate of the image
+     * @param s the name of the image/picture, e.g., "ball.gif"
+     * @throws RuntimeException if the image is corrupt
+     */
+    public void picture(double x, double y, String s) {
+        Image image = getImage(s);
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        int ws = image.getWidth(null);
+        int hs = image.getHeight(null);
+        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
+
+        int dx = (int) Math.round(xs - ws/2.0);
+        int dy = (int) Math.round(ys - hs/2.0);
+        if (recording != null)
+            recording.addImage(image, dx, dy, dx + ws, dy + hs, 0, 0, ws, hs, g.getTransform(),
+                               xs - ws/2.0 - 1, ys - hs/2.0 - 1, xs + ws/2.0 + 1, ys + hs/2.0 + 1);
+        else {
+            g.drawImage(image, dx, dy, null);
+            markDirty(xs - ws/2.0 - 1, ys - hs/2.0 - 1, xs + ws/2.0 + 1, ys + hs/2.0 + 1);
+        }
+    }
+
+    /**
+     * Draw picture (gif, jpg, or png) centered on (x, y),
+     * rotated given number of degrees
+     * @param x the center x-coordinate of the image
+     * @param y the center y-coordinate of the image
+     * @param s the name of the image/picture, e.g., "ball.gif"
+     * @param degrees is the number of degrees to rotate counterclockwise
+     * @throws RuntimeException if the image is corrupt
+     */
+    public void picture(double x, double y, String s, double degrees) {
+        Image image = getImage(s);
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        int ws = image.getWidth(null);
+        int hs = image.getHeight(null);
+        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
+
+        int dx = (int) Math.round(xs - ws/2.0);
+        int dy = (int) Math.round(ys - hs/2.0);
+        g.rotate(Math.toRadians(-degrees), xs, ys);
+        if (recording != null) recordRotated(image, dx, dy, ws, hs, xs, ys, ws, hs);
+        else g.drawImage(image, dx, dy, null);
+        g.rotate(Math.toRadians(+degrees), xs, ys);
+        markDirtyRotated(xs, ys, ws, hs);
+    }
+
+    /**
+     * Draw picture (gif, jpg, or png) centered on (x, y), rescaled to w-by-h.
+     * @param x the center x coordinate of the image
+     * @param y the center y coordinate of the image
+     * @param s the name of the image/picture, e.g., "ball.gif"
+     * @param w the width of the image
+     * @param h the height of the image
+     * @throws RuntimeException if the width height are negative
+     * @throws RuntimeException if the image is corrupt
+     */
+    public void picture(double x, double y, String s, double w, double h) {
+        Image image = getImage(s);
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        if (w < 0) throw new RuntimeException("width is negative: " + w);
+        if (h < 0) throw new RuntimeException("height is negative: " + h);
+        double ws = factorX(w);
+        double hs = factorY(h);
+        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else {
+            int dx = (int) Math.round(xs - ws/2.0);
+            int dy = (int) Math.round(ys - hs/2.0);
+            int dw = (int) Math.round(ws);
+            int dh = (int) Math.round(hs);
+            if (recording != null)
+                recording.addImage(image, dx, dy, dx + dw, dy + dh,
+                                   0, 0, image.getWidth(null), image.getHeight(null), g.getTransform(),
+                                   xs - ws/2.0 - 1, ys - hs/2.0 - 1, xs + ws/2.0 + 1, ys + hs/2.0 + 1);
+            else {
+                g.drawImage(image, dx, dy, dw, dh, null);
+                markDirty(xs - ws/2.0 - 1, ys - hs/2.0 - 1, xs + ws/2.0 + 1, ys + hs/2.0 + 1);
+            }
+        }
+    }
+
+
+    /**
+     * Draw picture (gif, jpg, or png) centered on (x, y), rotated
+     * given number of degrees, rescaled to w-by-h.
+     * @param x the center x-coordinate of the image
+     * @param y the center y-coordinate of the image
+     * @param s the name of the image/picture, e.g., "ball.gif"
+     * @param w the width of the image
+     * @param h the height of the image
+     * @param degrees is the number of degrees to rotate counterclockwise
+     * @throws RuntimeException if the image is corrupt
+     */
+    public void picture(double x, double y, String s, double w, double h, double degrees) {
+        Image image = getImage(s);
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(w);
+        double hs = factorY(h);
+        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+
+        int dx = (int) Math.round(xs - ws/2.0);
+        int dy = (int) Math.round(ys - hs/2.0);
+        int dw = (int) Math.round(ws);
+        int dh = (int) Math.round(hs);
+        g.rotate(Math.toRadians(-degrees), xs, ys);
+        if (recording != null)
+            recordRotated(image, dx, dy, dw, dh, xs, ys, ws, hs);
+        else g.drawImage(image, dx, dy, dw, dh, null);
+        g.rotate(Math.toRadians(+degrees), xs, ys);
+        markDirtyRotated(xs, ys, ws, hs);
+    }
+
+    // record the whole of an image drawn into the dw-by-dh rectangle at
+    // (dx, dy) through the current (rotated) transform, with the bounds that
+    // markDirtyRotated(xs, ys, w, h) would mark
+    private void recordRotated(Image image, int dx, int dy, int dw, int dh,
+                               double xs, double ys, double w, double h) {
+        double r = Math.hypot(w, h) / 2 + 1;
+        recording.addImage(image, dx, dy, dx + dw, dy + dh, 0, 0, image.getWidth(null), image.getHeight(null),
+                           g.getTransform(), xs - r, ys - r, xs + r, ys + r);
+    }
+
+
+    /**
+     * Draw the first count sprites from the given atlas in one batch. Sprite k
+     * is atlas sprite sprite[k] (or sprite 0 if sprite is null), centered on
+     * (x[k], y[k]) and rotated degrees[k] counterclockwise (or not rotated if
+     * degrees is null). This is much faster than calling <tt>picture()</tt>
+     * once for each sprite.
+     * @param atlas the atlas holding the sprites
+     * @param sprite the index in the atlas of each sprite, or null
+     * @param x the center x-coordinate of each sprite
+     * @param y the center y-coordinate of each sprite
+     * @param degrees the number of degrees to rotate each sprite, or null
+     * @param count the number of sprites to draw
+     * @throws IndexOutOfBoundsException if a sprite index is not in the atlas
+     */
+    public void drawSprites(SpriteAtlas atlas, int[] sprite, double[] x, double[] y, double[] degrees, int count) {
+        if (xs.length < count) {
+            xs = new double[count];
+            ys = new double[count];
+        }
+        transform.toPixels(x, y, xs, ys, count);
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < count; k++) {
+            x0 = Math.min(x0, xs[k]);
+            y0 = Math.min(y0, ys[k]);
+            x1 = Math.max(x1, xs[k]);
+            y1 = Math.max(y1, ys[k]);
+        }
+        atlas.draw(g, recording, sprite, xs, ys, degrees, count);
+        double pad = atlas.maxExtent() / 2.0 + 1;
+        if (count > 0) markDirty(x0 - pad, y0 - pad, x1 + pad, y1 + pad);
+    }
+
+    /**
+     * Draw one sprite from the given atlas for each element of x, in one batch.
+     * @param atlas the atlas holding the sprites
+     * @param sprite the index in the atlas of each sprite, or null
+     * @param x the center x-coordinate of each sprite
+     * @param y the center y-coordinate of each sprite
+     * @param degrees the number of degrees to rotate each sprite, or null
+     * @throws IndexOutOfBoundsException if a sprite index is not in the atlas
+     */
+    public void drawSprites(SpriteAtlas atlas, int[] sprite, double[] x, double[] y, double[] degrees) {
+        drawSprites(atlas, sprite, x, y, degrees, x.length);
+    }
+
+   /*************************************************************************
+    *  Drawing text.
+    *************************************************************************/
+
+    /**
+     * Write the given text string in the current font, centered on (x, y).
+     * @param x the center x-coordinate of the text
+     * @param y the center y-coordinate of the text
+     * @param s the text
+     */
+    public void text(double x, double y, String s) {
+        text(scaleX(x), scaleY(y), s, 0.5, false);
+    }
+
+    // write s with the given fraction of its width (0.5 to center it) to the
+    // left of pixel coordinates (xs, ys) and mark it dirty; skip it if it is
+    // entirely off the canvas, unless it is being rotated, in which case the
+    // caller culls it and marks it dirty
+    private void text(double xs, double ys, String s, double align, boolean rotated) {
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        int ws = metrics.stringWidth(s);
+        int hs = metrics.getDescent();
+        double x0 = xs - ws * align;
+        if (!rotated && cull(x0 - 1, ys + hs - metrics.getMaxAscent() - 1, x0 + ws + 1, ys + hs + metrics.getMaxDescent() + 1))
+            return;
+        if (recording != null)
+            recording.addText(s, (float) x0, (float) (ys + hs), penColor, font, g.getTransform(),
+                              boundsX0, boundsY0, boundsX1, boundsY1);
+        else g.drawString(s, (float) x0, (float) (ys + hs));
+        if (!rotated) markBounds();
+    }
+
+    /**
+     * Write the given text string in the current font, centered on (x, y) and
+     * rotated by the specified number of degrees
+     * @param x the center x-coordinate of the text
+     * @param y the center y-coordinate of the text
+     * @param s the text
+     * @param degrees is the number of degrees to rotate counterclockwise
+     */
+    public void text(double x, double y, String s, double degrees) {
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        double r = Math.hypot(metrics.stringWidth(s), 2 * metrics.getHeight()) / 2 + 1;
+        if (cull(xs - r, ys - r, xs + r, ys + r)) return;
+        g.rotate(Math.toRadians(-degrees), xs, ys);
+        text(xs, ys, s, 0.5, true);
+        g.rotate(Math.toRadians(+degrees), xs, ys);
+        markBounds();
+    }
+
+
+    /**
+     * Write the given text string in the current font, left-aligned at (x, y).
+     * @param x the x-coordinate of the text
+     * @param y the y-coordinate of the text
+     * @param s the text
+     */
+    public void textLeft(double x, double y, String s) {
+        text(scaleX(x), scaleY(y), s, 0.0, false);
+    }
+
+    /**
+     * Write the given text string in the current font, right-aligned at (x, y).
+     * @param x the x-coordinate of the text
+     * @param y the y-coordinate of the text
+     * @param s the text
+     */
+    public void textRight(double x, double y, String s) {
+        text(scaleX(x), scaleY(y), s, 1.0, false);
+    }
+
+
+   /*************************************************************************
+    *  Save drawing to a file.
+    *************************************************************************/
+
+    /**
+     * Save to file - suffix must be png or jpg.
+     * @param filename the name of the file with one of the required suffixes
+     */
+    public void save(String filename) {
+        File file = new File(filename);
+        String suffix = filename.substring(filename.lastIndexOf('.') + 1);
+
+        // png files
+        if (suffix.toLowerCase().equals("png")) {
+            try { ImageIO.write(image, suffix, file); }
+            catch (IOException e) { e.printStackTrace(); }
+        }
+
+        // need to change from ARGB to RGB for jpeg
+        // reference: http://archives.java.sun.com/cgi-bin/wa?A2=ind0404&L=java2d-interest&D=0&P=2727
+        else if (suffix.toLowerCase().equals("jpg")) {
+            WritableRaster raster = image.getRaster();
+            WritableRaster newRaster;
+            newRaster = raster.createWritableChild(0, 0, width, height, 0, 0, new int[] {0, 1, 2});
+            DirectColorModel cm = (DirectColorModel) image.getColorModel();
+            DirectColorModel newCM = new DirectColorModel(cm.getPixelSize(),
+                                                          cm.getRedMask(),
+                                                          cm.getGreenMask(),
+                                                          cm.getBlueMask());
+            BufferedImage rgbBuffer = new BufferedImage(newCM, newRaster, false,  null);
+            try { ImageIO.write(rgbBuffer, suffix, file); }
+            catch (IOException e) { e.printStackTrace(); }
+        }
+
+        else {
+            System.out.println("Invalid image file type: " + suffix);
+        }
+    }
+
+
+    /**
+     * Test client: draws a different picture on each of several canvases
+     * using one thread per canvas, and saves each to a file. If a number of
+     * calls is given instead, prints the number of bytes allocated per call
+     * of each drawing method, averaged over that many calls.
+     * @param args optional number of calls
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0) {
+            allocations(Integer.parseInt(args[0]));
+            return;
+        }
+        int n = Runtime.getRuntime().availableProcessors();
+        Thread[] threads = new Thread[n];
+        for (int t = 0; t < n; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                DrawCanvas canvas = new DrawCanvas(256, 256);
+                canvas.setPenColor(Color.BLUE);
+                for (int i = 0; i <= id; i++)
+                    canvas.filledCircle(0.5, 0.5, 0.4 * (id + 1 - i) / (id + 1));
+                canvas.text(0.5, 0.05, "canvas " + id);
+                canvas.save("canvas" + id + ".png");
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+    }
+
+    // print the bytes allocated per call of each drawing method
+    private static void allocations(int calls) {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("this JVM does not count allocated bytes");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        DrawCanvas canvas = new DrawCanvas();
+        canvas.setPenRadius(0.005);
+        double[] px = { 0.1, 0.9, 0.5 };
+        double[] py = { 0.1, 0.1, 0.8 };
+        String[] names = { "line", "point", "circle", "filledCircle", "arc", "square",
+                           "filledSquare", "rectangle", "filledRectangle", "polygon", "filledPolygon" };
+        for (int rep = 0; rep < 2; rep++) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < names.length; k++) {
+                long before = threads.getThreadAllocatedBytes(id);
+                for (int i = 0; i < calls; i++) {
+                    double x = (i % 97) / 97.0, y = (i % 89) / 89.0;
+                    switch (k) {
+                        case 0:  canvas.line(x, y, y, x);                 break;
+                        case 1:  canvas.point(x, y);                      break;
+                        case 2:  canvas.circle(x, y, 0.05);               break;
+                        case 3:  canvas.filledCircle(x, y, 0.05);         break;
+                        case 4:  canvas.arc(x, y, 0.05, 0, 270);          break;
+                        case 5:  canvas.square(x, y, 0.05);               break;
+                        case 6:  canvas.filledSquare(x, y, 0.05);         break;
+                        case 7:  canvas.rectangle(x, y, 0.05, 0.02);      break;
+                        case 8:  canvas.filledRectangle(x, y, 0.05, 0.02); break;
+                        case 9:  canvas.polygon(px, py);                  break;
+                        default: canvas.filledPolygon(px, py);            break;
+                    }
+                }
+                long bytes = threads.getThreadAllocatedBytes(id) - before;
+                sb.append(String.format("%-16s %8.1f bytes per call%n", names[k], (double) bytes / calls));
+            }
+            if (rep == 1) System.out.print(sb);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac EventRing.java
+ *
+ *  A bounded queue of input events for exactly one producer thread (the
+ *  event dispatch thread) and one consumer thread (the program). Each
+ *  event is an int code, a time stamp, and an (x, y) position, stored
+ *  in parallel arrays, so adding and removing events creates no objects
+ *  and neither thread ever waits for the other.
+ *
+ *  Remarks
+ *  -------
+ *    -  if the queue is full, new events are dropped
+ *
+ *************************************************************************/
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class EventRing {
+
+    // the events; event number i is stored at index i & mask
+    private final int[] code;
+    private final long[] time;
+    private final double[] x;
+    private final double[] y;
+    private final int mask;
+
+    // number of events ever removed (written only by the consumer) and
+    // ever added (written only by the producer)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // number of events dropped because the queue was full
+    private volatile long dropped;
+
+    // create a queue with room for capacity events; capacity must be a power of 2
+    EventRing(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1)
+            throw new RuntimeException("capacity must be a power of 2");
+        code = new int[capacity];
+        time = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    // producer: add an event, or drop it and return false if the queue is full
+    boolean offer(int c, long t, double xx, double yy) {
+        long n = tail.get();
+        if (n - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int) n & mask;
+        code[i] = c;
+        time[i] = t;
+        x[i] = xx;
+        y[i] = yy;
+        tail.lazySet(n + 1);    // publish the event
+        return true;
+    }
+
+    // consumer: is the queue empty?
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    // consumer: remove the oldest event and return its code
+    int poll() {
+        long n = head.get();
+        if (n == tail.get()) throw new NoSuchElementException();
+        int c = code[(int) n & mask];
+        head.lazySet(n + 1);    // free the slot
+        return c;
+    }
+
+    // consumer: remove up to max of the oldest events into the given arrays
+    // (any of which may be null) and return the number removed; no more
+    // events are removed than fit in the shortest array
+    int drain(int[] c, long[] t, double[] xx, double[] yy, int max) {
+        if (max < 0) throw new RuntimeException("max must not be negative");
+        if (c  != null) max = Math.min(max, c.length);
+        if (t  != null) max = Math.min(max, t.length);
+        if (xx != null) max = Math.min(max, xx.length);
+        if (yy != null) max = Math.min(max, yy.length);
+        long n = head.get();
+        int count = (int) Math.min(max, tail.get() - n);
+        for (int k = 0; k < count; k++) {
+            int i = (int) (n + k) & mask;
+            if (c  != null) c[k]  = code[i];
+            if (t  != null) t[k]  = time[i];
+            if (xx != null) xx[k] = x[i];
+            if (yy != null) yy[k] = y[i];
+        }
+        head.lazySet(n + count);
+        return count;
+    }
+
+    // number of events dropped because the queue was full
+    long dropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,280 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac FrameExporter.java
+ *  Execution:    java FrameExporter [frames]
+ *
+ *  Saves images to png or jpg files on background threads. The caller
+ *  only copies the pixels into a buffer taken from a pool; the buffer is
+ *  encoded and written by a pool of encoder threads and then returned
+ *  to the pool. If the encoders fall behind, save() waits until one of
+ *  them finishes instead of queueing frames without limit.
+ *
+ *  Remarks
+ *  -------
+ *    -  for jpg files the alpha channel is dropped while copying, so
+ *       no extra raster is built for each frame
+ *
+ *************************************************************************/
+
+import java.awt.image.*;
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.*;
+import javax.imageio.ImageIO;
+
+/**
+ *  <i>Frame exporter</i>. This class writes images to png or jpg files
+ *  asynchronously. Each call to <tt>save()</tt> copies the image, hands the
+ *  copy to a background encoder, and returns a {@link Future} that
+ *  completes when the file has been written. At most a fixed number of
+ *  frames can be waiting to be written; when that many are waiting,
+ *  <tt>save()</tt> blocks until one is done, so a fast producer is slowed
+ *  down rather than running out of memory or dropping frames.
+ *  <p>
+ *  A {@link Sequence} writes numbered frames, such as the frames of an
+ *  animation, using a file name pattern like <tt>"frame%05d.png"</tt>.
+ *  <p>
+ *  The methods of this class are safe to call from several threads.
+ */
+public final class FrameExporter {
+
+    // the encoder threads
+    private final ThreadPoolExecutor encoders;
+
+    // one permit for each frame that may be copied but not yet written
+    private final Semaphore pending;
+    private final int capacity;
+
+    // buffers that are not in use
+    private final ArrayDeque<BufferedImage> free = new ArrayDeque<BufferedImage>();
+
+    /**
+     * Create an exporter with one encoder thread for each processor and
+     * room for twice that many frames waiting to be written.
+     */
+    public FrameExporter() {
+        this(Runtime.getRuntime().availableProcessors(),
+             2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an exporter with the given number of encoder threads that lets
+     * at most capacity frames wait to be written.
+     * @param threads the number of encoder threads
+     * @param capacity the number of frames that may wait to be written
+     * @throws RuntimeException if threads or capacity is 0 or negative
+     */
+    public FrameExporter(int threads, int capacity) {
+        if (threads < 1) throw new RuntimeException("number of threads must be positive");
+        if (capacity < 1) throw new RuntimeException("capacity must be positive");
+        this.capacity = capacity;
+        pending = new Semaphore(capacity);
+
+        // the semaphore keeps the queue from ever holding more than capacity tasks;
+        // idle threads exit so that the program can end
+        encoders = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<Runnable>(capacity),
+                                          r -> new Thread(r, "frame-exporter"));
+        encoders.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Copy the given image and write the copy to the given file in the
+     * background. The suffix of the file name must be png or jpg. If
+     * capacity frames are already waiting to be written, this method
+     * blocks until one of them has been written.
+     * @param image the image to save
+     * @param filename the name of the file with one of the required suffixes
+     * @return a future that completes with the file once it has been written,
+     *         or with the exception that stopped it from being written
+     * @throws RuntimeException if the suffix is not png or jpg, if this
+     *         exporter has been closed, or if the calling thread is interrupted
+     */
+    public Future<File> save(BufferedImage image, String filename) {
+        String suffix = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+        int type;
+        if (suffix.equals("png"))      type = BufferedImage.TYPE_INT_ARGB;
+        else if (suffix.equals("jpg")) type = BufferedImage.TYPE_INT_RGB;
+        else throw new RuntimeException("Invalid image file type: " + suffix);
+        if (encoders.isShutdown()) throw new RuntimeException("exporter is closed");
+
+        try { pending.acquire(); }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting to save " + filename);
+        }
+
+        final BufferedImage copy;
+        try {
+            copy = take(image.getWidth(), image.getHeight(), type);
+            copy(image, copy);
+        }
+        catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+
+        final File file = new File(filename);
+        FutureTask<File> task = new FutureTask<File>(() -> {
+            try {
+                if (!ImageIO.write(copy, suffix, file))
+                    throw new IOException("no writer for " + suffix + " files");
+                return file;
+            }
+            finally {
+                give(copy);
+                pending.release();
+            }
+        });
+        try { encoders.execute(task); }
+        catch (RejectedExecutionException e) {
+            give(copy);
+            pending.release();
+            throw new RuntimeException("exporter is closed");
+        }
+        return task;
+    }
+
+    /**
+     * Wait until every frame passed to <tt>save()</tt> so far has been written.
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void flush() throws InterruptedException {
+        pending.acquire(capacity);
+        pending.release(capacity);
+    }
+
+    /**
+     * Write the frames that are waiting, and then stop the encoder threads.
+     * Frames cannot be saved after this method is called.
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void close() throws InterruptedException {
+        encoders.shutdown();
+        encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a sequence that saves numbered frames with this exporter.
+     * @param pattern the file name pattern, e.g., "frame%05d.png"
+     * @return a new sequence whose first frame is numbered 0
+     */
+    public Sequence sequence(String pattern) {
+        return new Sequence(pattern, 0);
+    }
+
+    /**
+     * <i>Frame sequence</i>. Saves frames to files whose names are made by
+     * formatting the frame number with a pattern such as <tt>"frame%05d.png"</tt>.
+     */
+    public final class Sequence {
+        private final String pattern;
+        private int next;
+
+        private Sequence(String pattern, int first) {
+            this.pattern = pattern;
+            this.next = first;
+        }
+
+        /**
+         * Save the given image as the next frame of this sequence.
+         * @param image the image to save
+         * @return a future that completes when the frame has been written
+         */
+        public synchronized Future<File> save(BufferedImage image) {
+            Future<File> f = FrameExporter.this.save(image, String.format(pattern, next));
+            next++;
+            return f;
+        }
+
+        /**
+         * Get the number of the next frame.
+         * @return the number of the next frame
+         */
+        public synchronized int next() { return next; }
+    }
+
+    // take a buffer from the pool, or create one if none of the right size is free
+    private BufferedImage take(int w, int h, int type) {
+        synchronized (free) {
+            for (BufferedImage b : free) {
+                if (b.getWidth() == w && b.getHeight() == h && b.getType() == type) {
+                    free.remove(b);
+                    return b;
+                }
+            }
+        }
+        return new BufferedImage(w, h, type);
+    }
+
+    // return a buffer to the pool; there are never more buffers than permits
+    private void give(BufferedImage b) {
+        synchronized (free) {
+            if (free.size() >= capacity) free.removeFirst();
+            free.addLast(b);
+        }
+    }
+
+    // copy the pixels of src into dst, which is TYPE_INT_ARGB or TYPE_INT_RGB;
+    // an RGB image ignores the top 8 bits, so alpha is dropped for free, but
+    // an RGB source has no alpha to copy into an ARGB image, whose pixels
+    // would then be transparent, so that case goes through getRGB()
+    private static void copy(BufferedImage src, BufferedImage dst) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        int[] to = ((DataBufferInt) dst.getRaster().getDataBuffer()).getData();
+        int type = src.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+            && (type == dst.getType() || dst.getType() == BufferedImage.TYPE_INT_RGB)
+            && src.getRaster().getDataBuffer() instanceof DataBufferInt
+            && src.getRaster().getSampleModelTranslateX() == 0
+            && src.getRaster().getSampleModelTranslateY() == 0
+            && src.getRaster().getWidth() == ((SinglePixelPackedSampleModel) src.getSampleModel()).getScanlineStride()) {
+            int[] from = ((DataBufferInt) src.getRaster().getDataBuffer()).getData();
+            System.arraycopy(from, 0, to, 0, w * h);
+        }
+        else {
+            src.getRGB(0, 0, w, h, to, 0, w);
+        }
+    }
+
+
+    /**
+     * Benchmark: draws frames (default 100) of an 800-by-800 animation and
+     * saves each one to a png file in a temporary directory, first with
+     * DrawCanvas.save() and then with a FrameExporter, and prints the time
+     * the drawing thread spent per frame in each case.
+     * @param args optional number of frames
+     */
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        File dir = java.nio.file.Files.createTempDirectory("frames").toFile();
+        DrawCanvas canvas = new DrawCanvas(800, 800);
+        Random random = new Random(1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            canvas.filledCircle(random.nextDouble(), random.nextDouble(), 0.05);
+            canvas.save(new File(dir, String.format("sync%04d.png", i)).getPath());
+        }
+        double sync = (System.nanoTime() - start) / 1e6 / frames;
+
+        FrameExporter exporter = new FrameExporter();
+        Sequence sequence = exporter.sequence(new File(dir, "async%04d.png").getPath());
+        start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            canvas.filledCircle(random.nextDouble(), random.nextDouble(), 0.05);
+            sequence.save(canvas.getImage());
+        }
+        double async = (System.nanoTime() - start) / 1e6 / frames;
+        exporter.close();
+        double total = (System.nanoTime() - start) / 1e6 / frames;
+
+        System.out.printf("save(): %.2f ms per frame; FrameExporter: %.2f ms per frame on the drawing thread, %.2f ms per frame until written%n",
+                          sync, async, total);
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+}
@@ -0,0 +1,296 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac ImageCache.java
+ *  Execution:    java ImageCache image
+ *
+ *  A bounded cache of decoded images. Images are looked up by the name
+ *  given to picture(), resolved to a file, URL, or classpath resource
+ *  the first time the name is seen, decoded once, converted to a pixel
+ *  format that can be drawn quickly, and kept until the total size of
+ *  the cached images exceeds the limit. The least recently used images
+ *  are evicted first.
+ *
+ *  Remarks
+ *  -------
+ *    -  the size of an image is width * height * 4 bytes
+ *    -  an image larger than the limit is returned but not cached
+ *    -  animated gifs are reduced to their first frame
+ *
+ *************************************************************************/
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.net.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.swing.*;
+
+/**
+ *  <i>Image cache</i>. This class keeps decoded images so that drawing
+ *  the same picture many times only reads and decodes it once. The cache
+ *  is bounded by the total number of bytes of the decoded images and
+ *  evicts the least recently used images when it is full. The pictures
+ *  drawn by {@link StdDraw} and {@link DrawCanvas} come from the default
+ *  cache, whose limit is 64 MB unless the system property
+ *  <tt>stddraw.imagecache.bytes</tt> says otherwise.
+ *  <p>
+ *  The methods of this class are safe to call from several threads.
+ */
+public final class ImageCache {
+
+    // default limit on the total size of the cached images
+    private static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    // limit on the number of names remembered
+    private static final int MAX_NAMES = 4096;
+
+    // the cache used by StdDraw and DrawCanvas
+    private static final ImageCache DEFAULT =
+        new ImageCache(Long.getLong("stddraw.imagecache.bytes", DEFAULT_MAX_BYTES));
+
+    // resolved source of each name passed to get()
+    private final HashMap<String, String> sources = new HashMap<String, String>();
+
+    // images by resolved source, in order from least to most recently used
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<String, Image>(16, 0.75f, true);
+
+    // limit on, and current total of, the size of the cached images
+    private long maxBytes;
+    private long bytes;
+
+    // statistics
+    private long hits, misses, evictions;
+
+    /**
+     * Create an empty cache that holds at most maxBytes bytes of images.
+     * @param maxBytes the limit on the total size of the cached images
+     * @throws RuntimeException if maxBytes is negative
+     */
+    public ImageCache(long maxBytes) {
+        if (maxBytes < 0) throw new RuntimeException("limit can't be negative");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the cache used by StdDraw and DrawCanvas.
+     * @return the default cache
+     */
+    public static ImageCache getDefault() { return DEFAULT; }
+
+    /**
+     * Get the image with the given name, which is a file name, a URL, or
+     * the name of a resource on the classpath. The image is read and decoded
+     * only if it is not already in the cache.
+     * @param name the name of the image, e.g., "ball.gif"
+     * @return the image
+     * @throws RuntimeException if the image cannot be found
+     */
+    public Image get(String name) {
+        String source;
+        synchronized (this) {
+            source = sources.get(name);
+            if (source != null) {
+                Image image = images.get(source);
+                if (image != null) {
+                    hits++;
+                    return image;
+                }
+            }
+            misses++;
+        }
+
+        // read and decode without holding the lock
+        if (source == null) source = resolve(name);
+        Image image = load(source, name);
+
+        synchronized (this) {
+            if (sources.size() >= MAX_NAMES) sources.clear();
+            sources.put(name, source);
+            Image other = images.get(source);
+            if (other != null) return other;
+            long size = sizeOf(image);
+            if (size <= maxBytes) {
+                images.put(source, image);
+                bytes += size;
+                trim();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Read and decode the images with the given names, if they are not
+     * already in the cache.
+     * @param names the names of the images
+     * @throws RuntimeException if an image cannot be found
+     */
+    public void preload(String... names) {
+        for (String name : names) get(name);
+    }
+
+    /**
+     * Remove all images from the cache. The statistics are not changed.
+     */
+    public synchronized void clear() {
+        sources.clear();
+        images.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Get the limit on the total size of the cached images.
+     * @return the limit in bytes
+     */
+    public synchronized long getMaxBytes() { return maxBytes; }
+
+    /**
+     * Set the limit on the total size of the cached images, evicting
+     * images if the cache is over the new limit.
+     * @param maxBytes the limit in bytes
+     * @throws RuntimeException if maxBytes is negative
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) throw new RuntimeException("limit can't be negative");
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Get the number of images in the cache.
+     * @return the number of images in the cache
+     */
+    public synchronized int size() { return images.size(); }
+
+    /**
+     * Get the total size of the images in the cache.
+     * @return the total size in bytes
+     */
+    public synchronized long bytes() { return bytes; }
+
+    /**
+     * Get the number of calls to get() that found the image in the cache.
+     * @return the number of hits
+     */
+    public synchronized long hits() { return hits; }
+
+    /**
+     * Get the number of calls to get() that had to read the image.
+     * @return the number of misses
+     */
+    public synchronized long misses() { return misses; }
+
+    /**
+     * Get the number of images removed to keep the cache under its limit.
+     * @return the number of evictions
+     */
+    public synchronized long evictions() { return evictions; }
+
+    /**
+     * Return a string with the statistics of this cache.
+     * @return a string with the statistics of this cache
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d images, %d bytes (limit %d), %d hits, %d misses, %d evictions",
+                             images.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+
+    // evict least recently used images until the cache is under its limit
+    private void trim() {
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= sizeOf(it.next().getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static long sizeOf(Image image) {
+        return 4L * image.getWidth(null) * image.getHeight(null);
+    }
+
+    // find the file, URL, or classpath resource with the given name
+    private static String resolve(String name) {
+
+        // a file
+        File file = new File(name);
+        if (file.isFile()) return file.getAbsoluteFile().toURI().toString();
+
+        // a URL
+        try {
+            return new URL(name).toString();
+        } catch (MalformedURLException e) { /* not a url */ }
+
+        // in case file is inside a .jar
+        URL url = ImageCache.class.getResource(name);
+        if (url == null) throw new RuntimeException("image " + name + " not found");
+        return url.toString();
+    }
+
+    // read, decode, and convert the image at the given source
+    private static Image load(String source, String name) {
+        URL url;
+        try {
+            url = new URL(source);
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("image " + name + " not found");
+        }
+
+        Image image = null;
+        try {
+            image = ImageIO.read(url);
+        } catch (IOException e) { /* try ImageIcon below */ }
+        if (image == null) {
+            ImageIcon icon = new ImageIcon(url);
+            if (icon.getImageLoadStatus() != MediaTracker.COMPLETE)
+                throw new RuntimeException("image " + name + " not found");
+            image = icon.getImage();
+        }
+        int w = image.getWidth(null);
+        int h = image.getHeight(null);
+        if (w < 0 || h < 0) throw new RuntimeException("image " + name + " is corrupt");
+        return toCompatible(image, w, h);
+    }
+
+    // copy the image into one with the pixel format of the screen, which can
+    // be drawn without conversion and may be cached in video memory
+    static BufferedImage toCompatible(Image image, int w, int h) {
+        BufferedImage copy;
+        if (GraphicsEnvironment.isHeadless()) {
+            copy = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                                                          .getDefaultScreenDevice()
+                                                          .getDefaultConfiguration();
+            if (image instanceof BufferedImage
+                && ((BufferedImage) image).getColorModel().equals(gc.getColorModel(Transparency.TRANSLUCENT)))
+                return (BufferedImage) image;
+            copy = gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+        }
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+
+    /**
+     * Test client: draws the given image 10,000 times and prints the
+     * statistics of the default cache.
+     * @param args the name of an image
+     */
+    public static void main(String[] args) {
+        DrawCanvas canvas = new DrawCanvas();
+        long start = System.nanoTime();
+        for (int i = 0; i < 10000; i++)
+            canvas.picture(Math.random(), Math.random(), args[0]);
+        System.out.printf("%.3f s%n", (System.nanoTime() - start) / 1e9);
+        System.out.println(getDefault());
+    }
+}
@@ -0,0 +1,307 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac PixelTransform.java
+ *  Execution:    java PixelTransform [n]
+ *
+ *  The mapping from user coordinates to pixel coordinates of a drawing,
+ *  stored as a scale and an offset for each axis. The scale and offset
+ *  are computed once, when the scale or the size of the drawing changes,
+ *  so mapping a point takes a multiply and an add instead of a division.
+ *
+ *  Remarks
+ *  -------
+ *    -  pixel y-coordinates grow downwards, so the y-scale is negative
+ *       unless the user y-scale is reversed
+ *    -  snapping integer coordinates uses fixed-point arithmetic whose
+ *       precision is chosen to fit the scale; if user coordinate 0 is more
+ *       than about a million pixels from the drawing, or a unit is more
+ *       than about a million pixels, it falls back to floating point
+ *
+ *************************************************************************/
+
+import java.util.Random;
+
+/**
+ *  <i>Pixel transform</i>. This class maps user coordinates, as set by
+ *  <tt>setXscale()</tt> and <tt>setYscale()</tt>, to pixel coordinates.
+ *  A pixel x-coordinate is <tt>sx * x + tx</tt> and a pixel y-coordinate
+ *  is <tt>sy * y + ty</tt>. Besides single points, whole arrays of points
+ *  can be mapped at once, either to exact pixel coordinates or snapped to
+ *  the nearest pixel.
+ *  <p>
+ *  A pixel transform cannot be changed once it is created. {@link DrawCanvas}
+ *  and {@link StdDraw} create a new one whenever their scale or size
+ *  changes, so a transform that has been returned by <tt>getTransform()</tt>
+ *  stays valid for as long as the scale is not changed.
+ */
+public final class PixelTransform {
+
+    // the fixed-point path is used only if the pixel coordinates of user
+    // coordinate 0 are within this many pixels of the origin
+    private static final double NEAR = 0x1p20;
+
+    // pixel = s * user + t on each axis
+    private final double sx, tx, sy, ty;
+
+    // the same, rounded to the nearest pixel, in fixed point with the given
+    // number of fraction bits: pixel = (s * user + t) >> shift; shift is 0
+    // if the fixed-point path can't be used on that axis
+    private final long fsx, ftx, fsy, fty;
+    private final int shiftX, shiftY;
+
+    /**
+     * Create the transform that maps the rectangle [xmin, xmax] by [ymin, ymax]
+     * in user coordinates onto a drawing of width-by-height pixels, with
+     * (xmin, ymax) at the top left corner.
+     * @param width the width of the drawing in pixels
+     * @param height the height of the drawing in pixels
+     * @param xmin the user x-coordinate of the left edge
+     * @param xmax the user x-coordinate of the right edge
+     * @param ymin the user y-coordinate of the bottom edge
+     * @param ymax the user y-coordinate of the top edge
+     */
+    public PixelTransform(int width, int height, double xmin, double xmax, double ymin, double ymax) {
+        sx = width / (xmax - xmin);
+        tx = -xmin * sx;
+        sy = -height / (ymax - ymin);
+        ty = -ymax * sy;
+
+        shiftX = shift(sx, tx);
+        shiftY = shift(sy, ty);
+        fsx = shiftX == 0 ? 0 : Math.round(Math.scalb(sx, shiftX));
+        fsy = shiftY == 0 ? 0 : Math.round(Math.scalb(sy, shiftY));
+        ftx = shiftX == 0 ? 0 : Math.round(Math.scalb(tx + 0.5, shiftX));
+        fty = shiftY == 0 ? 0 : Math.round(Math.scalb(ty + 0.5, shiftY));
+    }
+
+    // the number of fraction bits that gives the scale s about 31 significant
+    // bits, so that an int times the scale always fits in a long, or 0 if
+    // the fixed-point result could be off by more than 1/1024 of a pixel for
+    // a point near the drawing: that is the case if user coordinate 0 is far
+    // from the drawing (t is large) or if a unit is huge or tiny in pixels
+    private static int shift(double s, double t) {
+        if (!(Math.abs(t) < NEAR)) return 0;
+        int shift = 30 - Math.getExponent(s);
+        if (shift < 10 || shift > 62) return 0;
+        if (Math.scalb(Math.abs(t) + 1, shift) >= 0x1p62) return 0;
+        return shift;
+    }
+
+    /**
+     * Map a user x-coordinate to a pixel x-coordinate.
+     * @param x the user x-coordinate
+     * @return the pixel x-coordinate
+     */
+    public double x(double x) { return sx * x + tx; }
+
+    /**
+     * Map a user y-coordinate to a pixel y-coordinate.
+     * @param y the user y-coordinate
+     * @return the pixel y-coordinate
+     */
+    public double y(double y) { return sy * y + ty; }
+
+    /**
+     * Map a width in user coordinates to a number of pixels.
+     * @param w the width in user coordinates
+     * @return the width in pixels, which is never negative if w is not
+     */
+    public double width(double w) { return w * Math.abs(sx); }
+
+    /**
+     * Map a height in user coordinates to a number of pixels.
+     * @param h the height in user coordinates
+     * @return the height in pixels, which is never negative if h is not
+     */
+    public double height(double h) { return h * Math.abs(sy); }
+
+    /**
+     * Map a user x-coordinate to the x-coordinate of the nearest pixel.
+     * @param x the user x-coordinate
+     * @return the x-coordinate of the nearest pixel
+     */
+    public int pixelX(double x) { return (int) Math.floor(sx * x + tx + 0.5); }
+
+    /**
+     * Map a user y-coordinate to the y-coordinate of the nearest pixel.
+     * @param y the user y-coordinate
+     * @return the y-coordinate of the nearest pixel
+     */
+    public int pixelY(double y) { return (int) Math.floor(sy * y + ty + 0.5); }
+
+    /**
+     * Map a pixel x-coordinate back to a user x-coordinate.
+     * @param x the pixel x-coordinate
+     * @return the user x-coordinate
+     */
+    public double userX(double x) { return (x - tx) / sx; }
+
+    /**
+     * Map a pixel y-coordinate back to a user y-coordinate.
+     * @param y the pixel y-coordinate
+     * @return the user y-coordinate
+     */
+    public double userY(double y) { return (y - ty) / sy; }
+
+    /**
+     * Get the pixel x-scale <tt>sx</tt>.
+     * @return the number of pixels per unit in x
+     */
+    public double scaleX() { return sx; }
+
+    /**
+     * Get the pixel y-scale <tt>sy</tt>, which is negative unless the
+     * user y-scale is reversed.
+     * @return the number of pixels per unit in y
+     */
+    public double scaleY() { return sy; }
+
+    /**
+     * Get the pixel x-offset <tt>tx</tt>.
+     * @return the pixel x-coordinate of user x-coordinate 0
+     */
+    public double offsetX() { return tx; }
+
+    /**
+     * Get the pixel y-offset <tt>ty</tt>.
+     * @return the pixel y-coordinate of user y-coordinate 0
+     */
+    public double offsetY() { return ty; }
+
+
+   /*************************************************************************
+    *  Mapping many points at once.
+    *************************************************************************/
+
+    /**
+     * Map the first n points (x[i], y[i]) to pixel coordinates (px[i], py[i]).
+     * The output arrays may be the same as the input arrays.
+     * @param x the user x-coordinates
+     * @param y the user y-coordinates
+     * @param px the array to hold the pixel x-coordinates
+     * @param py the array to hold the pixel y-coordinates
+     * @param n the number of points
+     */
+    public void toPixels(double[] x, double[] y, double[] px, double[] py, int n) {
+        final double sx = this.sx, tx = this.tx, sy = this.sy, ty = this.ty;
+        for (int i = 0; i < n; i++) px[i] = sx * x[i] + tx;
+        for (int i = 0; i < n; i++) py[i] = sy * y[i] + ty;
+    }
+
+    /**
+     * Map the first n points (x[i], y[i]) to the coordinates (px[i], py[i])
+     * of the nearest pixels.
+     * @param x the user x-coordinates
+     * @param y the user y-coordinates
+     * @param px the array to hold the pixel x-coordinates
+     * @param py the array to hold the pixel y-coordinates
+     * @param n the number of points
+     */
+    public void snapToPixels(double[] x, double[] y, int[] px, int[] py, int n) {
+        final double sx = this.sx, tx = this.tx + 0.5, sy = this.sy, ty = this.ty + 0.5;
+        for (int i = 0; i < n; i++) px[i] = (int) Math.floor(sx * x[i] + tx);
+        for (int i = 0; i < n; i++) py[i] = (int) Math.floor(sy * y[i] + ty);
+    }
+
+    /**
+     * Map the first n points (x[i], y[i]) with integer user coordinates to
+     * the coordinates (px[i], py[i]) of the nearest pixels. This uses
+     * integer arithmetic only, and gives the same pixels as the other
+     * methods except, rarely, for a point almost exactly halfway between
+     * two pixels.
+     * The output arrays may be the same as the input arrays.
+     * @param x the user x-coordinates
+     * @param y the user y-coordinates
+     * @param px the array to hold the pixel x-coordinates
+     * @param py the array to hold the pixel y-coordinates
+     * @param n the number of points
+     */
+    public void snapToPixels(int[] x, int[] y, int[] px, int[] py, int n) {
+        if (shiftX == 0) {
+            for (int i = 0; i < n; i++) px[i] = pixelX(x[i]);
+        }
+        else {
+            final long s = fsx, t = ftx;
+            final int shift = shiftX;
+            for (int i = 0; i < n; i++) px[i] = clamp((x[i] * s + t) >> shift);
+        }
+        if (shiftY == 0) {
+            for (int i = 0; i < n; i++) py[i] = pixelY(y[i]);
+        }
+        else {
+            final long s = fsy, t = fty;
+            final int shift = shiftY;
+            for (int i = 0; i < n; i++) py[i] = clamp((y[i] * s + t) >> shift);
+        }
+    }
+
+    // the nearest int to p, like a cast from double
+    private static int clamp(long p) {
+        return p < Integer.MIN_VALUE ? Integer.MIN_VALUE : p > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) p;
+    }
+
+    /**
+     * Return a string with the scale and offset of this transform.
+     * @return a string with the scale and offset of this transform
+     */
+    @Override
+    public String toString() {
+        return String.format("x -> %s * x + %s, y -> %s * y + %s", sx, tx, sy, ty);
+    }
+
+
+    /**
+     * Benchmark: maps n random points (default 10,000,000) to pixels on a
+     * 512-by-512 drawing by dividing for every point, as the scaling helpers
+     * used to, and with toPixels() and snapToPixels(), and prints the time
+     * of each.
+     * @param args optional n
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        int width = 512, height = 512;
+        double xmin = -50, xmax = 1050, ymin = -50, ymax = 1050;
+        PixelTransform t = new PixelTransform(width, height, xmin, xmax, ymin, ymax);
+
+        Random random = new Random(1);
+        double[] x = new double[n], y = new double[n];
+        int[] ix = new int[n], iy = new int[n];
+        for (int i = 0; i < n; i++) {
+            ix[i] = random.nextInt(1000);
+            iy[i] = random.nextInt(1000);
+            x[i] = ix[i];
+            y[i] = iy[i];
+        }
+        double[] px = new double[n], py = new double[n];
+        int[] qx = new int[n], qy = new int[n];
+        int[] rx = new int[n], ry = new int[n];
+
+        for (int rep = 0; rep < 5; rep++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                px[i] = width  * (x[i] - xmin) / (xmax - xmin);
+                py[i] = height * (ymax - y[i]) / (ymax - ymin);
+            }
+            double divide = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            t.toPixels(x, y, px, py, n);
+            double exact = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            t.snapToPixels(x, y, qx, qy, n);
+            double snapped = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            t.snapToPixels(ix, iy, rx, ry, n);
+            double fixed = (System.nanoTime() - start) / 1e6;
+
+            int differ = 0;
+            for (int i = 0; i < n; i++)
+                if (qx[i] != rx[i] || qy[i] != ry[i]) differ++;
+            System.out.printf("%d points: divide %.1f ms, toPixels %.1f ms, snapToPixels(double) %.1f ms, snapToPixels(int) %.1f ms, %d differ%n",
+                              n, divide, exact, snapped, fixed, differ);
+        }
+    }
+}
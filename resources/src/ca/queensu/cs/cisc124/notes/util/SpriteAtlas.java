@@ -0,0 +1,309 @@
+package princeton.introcs;
+
+/*************************************************************************
+ *  Compilation:  javac SpriteAtlas.java
+ *  Execution:    java SpriteAtlas [n] [rotations]
+ *
+ *  A set of sprites packed into one image (a texture atlas). Each sprite
+ *  can also be stored pre-rotated at a number of evenly spaced angles,
+ *  so that a rotated sprite is drawn by copying a rectangle out of the
+ *  atlas instead of rotating the graphics context.
+ *
+ *  Remarks
+ *  -------
+ *    -  a rotated sprite is drawn using the stored angle closest to the
+ *       requested one, so with r rotations the angle is off by at most
+ *       180/r degrees
+ *    -  the regions are packed in rows (shelves) with a one pixel gap
+ *
+ *************************************************************************/
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+/**
+ *  <i>Sprite atlas</i>. This class packs a set of images (sprites) into a
+ *  single image so that many of them can be drawn quickly with
+ *  {@link DrawCanvas#drawSprites} and {@link StdDraw#drawSprites}. If the
+ *  atlas is created with more than one rotation, each sprite is also
+ *  rendered at that many evenly spaced angles ahead of time, and a rotated
+ *  sprite is drawn as a plain copy of the closest pre-rotated image. With
+ *  one rotation, rotated sprites are drawn by transforming the sprite.
+ *  <p>
+ *  A sprite atlas cannot be changed once it is created.
+ */
+public final class SpriteAtlas {
+
+    // gap between packed regions, in pixels
+    private static final int GAP = 1;
+
+    // number of sprites and of rotations of each
+    private final int n;
+    private final int rotations;
+
+    // the packed image
+    private final BufferedImage texture;
+
+    // region of rotation k of sprite i is index i * rotations + k
+    private final int[] rx, ry, rw, rh;
+
+    // sprite i, unrotated, as a view of the texture
+    private final BufferedImage[] sprites;
+
+    /**
+     * Create an atlas of the pictures with the given names, each stored
+     * at the given number of evenly spaced angles.
+     * @param names the names of the pictures, e.g., "ball.gif"
+     * @param rotations the number of angles at which to store each sprite
+     * @throws RuntimeException if rotations is 0 or negative, or if a
+     *         picture cannot be found
+     */
+    public SpriteAtlas(String[] names, int rotations) {
+        this(load(names), rotations);
+    }
+
+    /**
+     * Create an atlas of the given images, each stored at the given number
+     * of evenly spaced angles.
+     * @param images the images
+     * @param rotations the number of angles at which to store each sprite
+     * @throws RuntimeException if rotations is 0 or negative, or if an
+     *         image is corrupt
+     */
+    public SpriteAtlas(Image[] images, int rotations) {
+        if (rotations < 1) throw new RuntimeException("number of rotations must be positive");
+        this.n = images.length;
+        this.rotations = rotations;
+        int m = n * rotations;
+        rx = new int[m];
+        ry = new int[m];
+        rw = new int[m];
+        rh = new int[m];
+
+        // size of every region
+        long area = 0;
+        int widest = 1;
+        for (int i = 0; i < n; i++) {
+            int w = images[i].getWidth(null);
+            int h = images[i].getHeight(null);
+            if (w < 0 || h < 0) throw new RuntimeException("image " + i + " is corrupt");
+            for (int k = 0; k < rotations; k++) {
+                double t = Math.toRadians(angle(k));
+                double c = Math.abs(Math.cos(t));
+                double s = Math.abs(Math.sin(t));
+                int j = i * rotations + k;
+                rw[j] = k == 0 ? w : (int) Math.ceil(w * c + h * s);
+                rh[j] = k == 0 ? h : (int) Math.ceil(w * s + h * c);
+                area += (long) (rw[j] + GAP) * (rh[j] + GAP);
+                widest = Math.max(widest, rw[j] + GAP);
+            }
+        }
+
+        // pack into shelves of a roughly square image
+        int width = Math.max(widest, (int) Math.ceil(Math.sqrt(area)));
+        int x = 0, y = 0, shelf = 0;
+        for (int j = 0; j < m; j++) {
+            if (x + rw[j] + GAP > width) {
+                x = 0;
+                y += shelf;
+                shelf = 0;
+            }
+            rx[j] = x;
+            ry[j] = y;
+            x += rw[j] + GAP;
+            shelf = Math.max(shelf, rh[j] + GAP);
+        }
+        int height = Math.max(1, y + shelf);
+
+        // render every region
+        BufferedImage packed = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = packed.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        AffineTransform identity = g.getTransform();
+        for (int i = 0; i < n; i++) {
+            int w = images[i].getWidth(null);
+            int h = images[i].getHeight(null);
+            for (int k = 0; k < rotations; k++) {
+                int j = i * rotations + k;
+                g.setTransform(identity);
+                g.setClip(rx[j], ry[j], rw[j], rh[j]);
+                g.translate(rx[j] + rw[j] / 2.0, ry[j] + rh[j] / 2.0);
+                g.rotate(Math.toRadians(-angle(k)));
+                g.drawImage(images[i], (int) Math.round(-w / 2.0), (int) Math.round(-h / 2.0), null);
+            }
+        }
+        g.dispose();
+        texture = ImageCache.toCompatible(packed, width, height);
+
+        sprites = new BufferedImage[n];
+        for (int i = 0; i < n; i++) {
+            int j = i * rotations;
+            sprites[i] = texture.getSubimage(rx[j], ry[j], rw[j], rh[j]);
+        }
+    }
+
+    private static Image[] load(String[] names) {
+        Image[] images = new Image[names.length];
+        for (int i = 0; i < names.length; i++)
+            images[i] = ImageCache.getDefault().get(names[i]);
+        return images;
+    }
+
+    // angle in degrees of rotation k
+    private double angle(int k) { return 360.0 * k / rotations; }
+
+    /**
+     * Get the number of sprites in this atlas.
+     * @return the number of sprites
+     */
+    public int size() { return n; }
+
+    /**
+     * Get the number of angles at which each sprite is stored.
+     * @return the number of rotations
+     */
+    public int rotations() { return rotations; }
+
+    /**
+     * Get the packed image.
+     * @return the image holding every sprite
+     */
+    public BufferedImage getImage() { return texture; }
+
+    /**
+     * Get the width in pixels of the given sprite, unrotated.
+     * @param i the index of a sprite
+     * @return the width of the sprite
+     */
+    public int width(int i) { return rw[i * rotations]; }
+
+    /**
+     * Get the height in pixels of the given sprite, unrotated.
+     * @param i the index of a sprite
+     * @return the height of the sprite
+     */
+    public int height(int i) { return rh[i * rotations]; }
+
+    // the largest diagonal of any region, in pixels: no sprite drawn at
+    // (xs, ys) touches a pixel more than half of this away
+    int maxExtent() {
+        double max = 0;
+        for (int j = 0; j < rw.length; j++)
+            max = Math.max(max, Math.hypot(rw[j], rh[j]));
+        return (int) Math.ceil(max);
+    }
+
+    /**
+     * Draw sprites centered on pixel coordinates on the given graphics
+     * context. Sprite k is sprite[k] (or sprite 0 if sprite is null),
+     * centered on (xs[k], ys[k]) and rotated degrees[k] counterclockwise
+     * (or not rotated if degrees is null). If list is not null the sprites
+     * are recorded in it, as drawn through the transform of g, instead.
+     * @param g the graphics context to draw on
+     * @param list the display list to record into, or null
+     * @param sprite the index of each sprite, or null
+     * @param xs the x-coordinate in pixels of the center of each sprite
+     * @param ys the y-coordinate in pixels of the center of each sprite
+     * @param degrees the rotation of each sprite, or null
+     * @param count the number of sprites to draw
+     */
+    void draw(Graphics2D g, DisplayList list, int[] sprite, double[] xs, double[] ys, double[] degrees, int count) {
+        final int[] rx = this.rx, ry = this.ry, rw = this.rw, rh = this.rh;
+        final int rotations = this.rotations;
+        final double buckets = rotations / 360.0;
+        AffineTransform xform = null;
+        AffineTransform base = list == null ? null : g.getTransform();
+        for (int k = 0; k < count; k++) {
+            int i = sprite == null ? 0 : sprite[k];
+            if (i < 0 || i >= n) throw new IndexOutOfBoundsException("sprite: " + i + ", size: " + n);
+            double d = degrees == null ? 0.0 : degrees[k];
+
+            // no rotation stored: rotate this sprite only
+            if (rotations == 1 && d != 0.0) {
+                if (xform == null) xform = new AffineTransform();
+                BufferedImage s = sprites[i];
+                xform.setToRotation(Math.toRadians(-d), xs[k], ys[k]);
+                xform.translate(Math.round(xs[k] - s.getWidth() / 2.0), Math.round(ys[k] - s.getHeight() / 2.0));
+                if (list == null) g.drawImage(s, xform, null);
+                else {
+                    AffineTransform t = new AffineTransform(base);
+                    t.concatenate(xform);
+                    int sw = s.getWidth(), sh = s.getHeight();
+                    double r = Math.hypot(sw, sh) / 2 + 1;
+                    list.addImage(s, 0, 0, sw, sh, 0, 0, sw, sh, t,
+                                  xs[k] - r, ys[k] - r, xs[k] + r, ys[k] + r);
+                }
+                continue;
+            }
+
+            int b = (int) Math.floor(d * buckets + 0.5) % rotations;
+            if (b < 0) b += rotations;
+            int j = i * rotations + b;
+            int w = rw[j];
+            int h = rh[j];
+            int x = (int) Math.round(xs[k] - w / 2.0);
+            int y = (int) Math.round(ys[k] - h / 2.0);
+            if (list == null)
+                g.drawImage(texture, x, y, x + w, y + h, rx[j], ry[j], rx[j] + w, ry[j] + h, null);
+            else
+                list.addImage(texture, x, y, x + w, y + h, rx[j], ry[j], rx[j] + w, ry[j] + h,
+                              base, x - 1, y - 1, x + w + 1, y + h + 1);
+        }
+    }
+
+
+    /**
+     * Benchmark: draws n rotated sprites (default 20,000) with
+     * picture(x, y, s, degrees) and with drawSprites() using an atlas
+     * with the given number of rotations (default 64), and prints the
+     * time per frame of each.
+     * @param args optional n and number of rotations
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rotations = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        // a small arrow-shaped sprite
+        BufferedImage arrow = new BufferedImage(24, 12, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = arrow.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillPolygon(new int[] { 0, 24, 0 }, new int[] { 0, 6, 12 }, 3);
+        g.dispose();
+        File file = File.createTempFile("arrow", ".png");
+        file.deleteOnExit();
+        ImageIO.write(arrow, "png", file);
+        String name = file.getPath();
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] degrees = new double[count];
+        Random random = new Random(1);
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+            degrees[i] = 360 * random.nextDouble();
+        }
+
+        SpriteAtlas atlas = new SpriteAtlas(new String[] { name }, rotations);
+        DrawCanvas canvas = new DrawCanvas(1024, 1024);
+        for (int rep = 0; rep < 5; rep++) {
+            long start = System.nanoTime();
+            canvas.clear();
+            for (int i = 0; i < count; i++)
+                canvas.picture(x[i], y[i], name, degrees[i]);
+            double picture = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            canvas.clear();
+            canvas.drawSprites(atlas, null, x, y, degrees, count);
+            double batched = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%d sprites: picture() %.1f ms, drawSprites() %.1f ms%n", count, picture, batched);
+        }
+    }
+}
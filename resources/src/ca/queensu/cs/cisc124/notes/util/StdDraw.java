@@ -24,13 +24,10 @@ package princeton.introcs;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.*;
 import java.awt.image.*;
 import java.io.*;
-import java.net.*;
-import java.util.LinkedList;
-import java.util.TreeSet;
-import javax.imageio.ImageIO;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
 import javax.swing.*;
 
 /**
@@ -76,9 +73,6 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static final Color DEFAULT_PEN_COLOR   = BLACK;
     private static final Color DEFAULT_CLEAR_COLOR = WHITE;
 
-    // current pen color
-    private static Color penColor;
-
     // default canvas size is DEFAULT_SIZE-by-DEFAULT_SIZE
     private static final int DEFAULT_SIZE = 512;
     private static int width  = DEFAULT_SIZE;
@@ -87,50 +81,76 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     // default pen radius
     private static final double DEFAULT_PEN_RADIUS = 0.002;
 
-    // current pen radius
-    private static double penRadius;
-
     // show we draw immediately or wait until next show?
     private static boolean defer = false;
 
-    // boundary of drawing canvas, 5% border
-    private static final double BORDER = 0.05;
+    // default boundary of drawing canvas
     private static final double DEFAULT_XMIN = 0.0;
     private static final double DEFAULT_XMAX = 1.0;
     private static final double DEFAULT_YMIN = 0.0;
     private static final double DEFAULT_YMAX = 1.0;
-    private static double xmin, ymin, xmax, ymax;
-
-    // for synchronization
-    private static Object mouseLock = new Object();
-    private static Object keyLock = new Object();
 
     // default font
     private static final Font DEFAULT_FONT = new Font("SansSerif", Font.PLAIN, 16);
 
-    // current font
-    private static Font font;
+    // the canvas that is drawn on (the offscreen buffer)
+    private static DrawCanvas canvas;
 
-    // double buffered graphics
-    private static BufferedImage offscreenImage, onscreenImage;
-    private static Graphics2D offscreen, onscreen;
+    // the last frame shown on screen (null in headless mode); it is only
+    // written by the drawing thread, so the window system can always
+    // repaint from it without seeing a half-drawn canvas
+    private static BufferedImage onscreenImage;
+    private static Graphics2D onscreen;
 
     // singleton for callbacks: avoids generation of extra .class files
     private static StdDraw std = new StdDraw();
 
-    // the frame for drawing to the screen
+    // the frame for drawing to the screen and the label in it that shows
+    // onscreenImage (null in headless mode)
     private static JFrame frame;
-
-    // mouse state
-    private static boolean mousePressed = false;
-    private static double mouseX = 0;
-    private static double mouseY = 0;
-
-    // queue of typed key characters
-    private static LinkedList<Character> keysTyped = new LinkedList<Character>();
-
-    // set of key codes currently pressed down
-    private static TreeSet<Integer> keysDown = new TreeSet<Integer>();
+    private static JLabel label;
+
+    // page flipping: present frames with a BufferStrategy on an AWT canvas
+    // instead of showing onscreenImage in a label; screen and strategy are
+    // null unless page flipping is actually in use
+    private static boolean pageFlipping = Boolean.getBoolean("stddraw.pageflip");
+    private static Screen screen;
+    private static BufferStrategy strategy;
+
+    // does the back buffer still hold the last frame after it is shown
+    // (true for blitting, and for page flipping that copies), and does it
+    // hold the last frame right now?
+    private static boolean backBufferKept;
+    private static boolean backBufferCurrent;
+
+    // background saving, and the sequence used by saveFrame()
+    private static FrameExporter exporter;
+    private static FrameExporter.Sequence sequence;
+    private static String sequencePattern;
+
+    // copy the whole image to the screen if more than this fraction of it
+    // has changed, since one large copy is faster than many small ones
+    private static final double FULL_COPY_FRACTION = 0.5;
+
+    // headless mode: draw only into the canvas, never create a window
+    private static boolean headless = Boolean.getBoolean("stddraw.headless")
+                                      || GraphicsEnvironment.isHeadless();
+
+    // mouse state, written only by the event dispatch thread
+    private static volatile boolean mousePressed = false;
+    private static volatile double mouseX = 0;
+    private static volatile double mouseY = 0;
+
+    // stream of mouse events, from the event dispatch thread to the program
+    private static final EventRing mouseEvents = new EventRing(4096);
+
+    // queue of typed key characters, from the event dispatch thread to the program
+    private static final EventRing keysTyped = new EventRing(1024);
+
+    // bit k of word k/64 is set if key code k is currently pressed down;
+    // written only by the event dispatch thread
+    private static final int KEY_CODES = 1 << 16;
+    private static final AtomicLongArray keysDown = new AtomicLongArray(KEY_CODES / 64);
   
 
     // not instantiable
@@ -164,40 +184,84 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         init();
     }
 
+    /**
+     * Is standard draw presenting frames by page flipping?
+     * @return true if page flipping was asked for and is supported
+     */
+    public static boolean isPageFlipping() { return strategy != null; }
+
+    /**
+     * Turn page flipping on or off. With page flipping, each frame shown by
+     * <tt>show()</tt> is drawn into a back buffer (in video memory if
+     * possible) which is then flipped onto the screen in one step, instead
+     * of being repainted by Swing. Only the part of the frame that changed
+     * is copied when the back buffer still holds the previous frame. When
+     * the window needs to be repainted, the last frame shown is flipped
+     * onto the screen again. If page flipping is not supported, standard
+     * draw quietly goes on using the copy. Page flipping is off by default
+     * unless the system property <tt>stddraw.pageflip</tt> is <tt>true</tt>.
+     * Changing the setting clears the canvas.
+     * @param b true to turn on page flipping, false to turn it off
+     */
+    public static void setPageFlipping(boolean b) {
+        if (b == pageFlipping) return;
+        pageFlipping = b;
+        init();
+    }
+
+    /**
+     * Is standard draw in headless mode?
+     * @return true if drawing goes only to the offscreen image
+     */
+    public static boolean isHeadless() { return headless; }
+
+    /**
+     * Turn headless mode on or off. In headless mode no window is created and
+     * drawing goes only to an offscreen image, which can still be written
+     * to a file using <tt>save()</tt>. Headless mode is on by default if the
+     * system property <tt>stddraw.headless</tt> is <tt>true</tt> or if
+     * there is no display. Changing the mode clears the canvas.
+     * @param b true to turn on headless mode, false to turn it off
+     * @throws HeadlessException if b is false and there is no display
+     */
+    public static void setHeadless(boolean b) {
+        if (!b && GraphicsEnvironment.isHeadless()) throw new HeadlessException();
+        if (b == headless) return;
+        headless = b;
+        init();
+    }
+
     // init
     private static void init() {
         if (frame != null) {
             frame.setVisible(false);
             frame.dispose();
+            frame = null;
+            label = null;
+            screen = null;
+            strategy = null;
         }
-        frame = new JFrame();
-        offscreenImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        onscreenImage  = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        offscreen = offscreenImage.createGraphics();
-        onscreen  = onscreenImage.createGraphics();
-        setXscale();
-        setYscale();
-        offscreen.setColor(DEFAULT_CLEAR_COLOR);
-        offscreen.fillRect(0, 0, width, height);
-        setPenColor();
-        setPenRadius();
-        setFont();
+        backBufferCurrent = false;
+        canvas = new DrawCanvas(width, height);
+        onscreenImage = null;
+        onscreen = null;
         clear();
 
-        // add antialiasing
-        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING,
-                                                  RenderingHints.VALUE_ANTIALIAS_ON);
-        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        offscreen.addRenderingHints(hints);
+        if (headless) return;
 
         // frame stuff
-        ImageIcon icon = new ImageIcon(onscreenImage);
-        JLabel draw = new JLabel(icon);
-
-        draw.addMouseListener(std);
-        draw.addMouseMotionListener(std);
-
-        frame.setContentPane(draw);
+        frame = new JFrame();
+        onscreenImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        onscreen = onscreenImage.createGraphics();
+        if (pageFlipping) {
+            screen = new Screen();
+            screen.setPreferredSize(new Dimension(width, height));
+            screen.setFocusable(false);  // keys go to the frame
+            screen.addMouseListener(std);
+            screen.addMouseMotionListener(std);
+            frame.add(screen);
+        }
+        else initLabel();
         frame.addKeyListener(std);    // JLabel cannot get keyboard focus
         frame.setResizable(false);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);            // closes all windows
@@ -205,8 +269,104 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         frame.setTitle("Standard Draw");
         frame.setJMenuBar(createMenuBar());
         frame.pack();
+
+        // fall back to copying if the canvas cannot have a buffer strategy
+        if (screen != null) {
+            try {
+                screen.createBufferStrategy(2);
+                strategy = screen.getBufferStrategy();
+            }
+            catch (RuntimeException e) { strategy = null; }
+            if (strategy != null) {
+                BufferCapabilities caps = strategy.getCapabilities();
+                backBufferKept = !caps.isPageFlipping()
+                    || caps.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+            }
+            else {
+                frame.remove(screen);
+                screen = null;
+                initLabel();
+                frame.pack();
+            }
+        }
+
         frame.requestFocusInWindow();
         frame.setVisible(true);
+        draw();
+    }
+
+    // show onscreenImage in a label
+    private static void initLabel() {
+        ImageIcon icon = new ImageIcon(onscreenImage);
+        label = new JLabel(icon);
+
+        label.addMouseListener(std);
+        label.addMouseMotionListener(std);
+
+        frame.setContentPane(label);
+    }
+
+    // an AWT canvas that shows the last frame presented again when the
+    // window system asks for it to be repainted; this happens on the event
+    // dispatch thread, which must not read the canvas while it is drawn on
+    private static final class Screen extends Canvas {
+        private static final long serialVersionUID = 1L;
+        @Override public void paint(Graphics g)  { reshow(); }
+        @Override public void update(Graphics g) { reshow(); }
+    }
+
+    // draw the part r of the canvas that changed into onscreenImage and
+    // the back buffer, and flip it onto the screen; the whole canvas is
+    // drawn into the back buffer only if it does not hold the last frame;
+    // called only on the drawing thread, by draw()
+    private static synchronized void present(Rectangle r) {
+        BufferStrategy bs = strategy;
+        if (bs == null) return;
+        BufferedImage image = canvas.getImage();
+        copy(onscreen, image, r);
+        boolean whole = !backBufferCurrent;
+        do {
+            do {
+                Graphics g = bs.getDrawGraphics();
+                if (whole) g.drawImage(image, 0, 0, null);
+                else       copy(g, image, r);
+                g.dispose();
+                whole = true;   // if drawing again, the buffer was lost
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+        backBufferCurrent = backBufferKept;
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    // show the last frame presented again, drawing it from onscreenImage
+    // only if the back buffer no longer holds it
+    private static synchronized void reshow() {
+        BufferStrategy bs = strategy;
+        if (bs == null) return;
+        if (backBufferCurrent) {
+            bs.show();
+            if (!bs.contentsLost()) {
+                Toolkit.getDefaultToolkit().sync();
+                return;
+            }
+        }
+        do {
+            do {
+                Graphics g = bs.getDrawGraphics();
+                g.drawImage(onscreenImage, 0, 0, null);
+                g.dispose();
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+        backBufferCurrent = backBufferKept;
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    // copy the part r of image to the same place in g
+    private static void copy(Graphics g, Image image, Rectangle r) {
+        g.drawImage(image, r.x, r.y, r.x + r.width, r.y + r.height,
+                           r.x, r.y, r.x + r.width, r.y + r.height, null);
     }
 
     // create the menu bar (changed to private)
@@ -243,9 +403,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param max the maximum value of the x-scale
      */
     public static void setXscale(double min, double max) {
-        double size = max - min;
-        xmin = min - BORDER * size;
-        xmax = max + BORDER * size;
+        canvas.setXscale(min, max);
     }
 
     /**
@@ -254,9 +412,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param max the maximum value of the y-scale
      */
     public static void setYscale(double min, double max) {
-        double size = max - min;
-        ymin = min - BORDER * size;
-        ymax = max + BORDER * size;
+        canvas.setYscale(min, max);
     }
 
     /**
@@ -269,13 +425,51 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         setYscale(min, max);
     }
 
-    // helper functions that scale from user coordinates to screen coordinates and back
-    private static double  scaleX(double x) { return width  * (x - xmin) / (xmax - xmin); }
-    private static double  scaleY(double y) { return height * (ymax - y) / (ymax - ymin); }
-    private static double factorX(double w) { return w * width  / Math.abs(xmax - xmin);  }
-    private static double factorY(double h) { return h * height / Math.abs(ymax - ymin);  }
-    private static double   userX(double x) { return xmin + x * (xmax - xmin) / width;    }
-    private static double   userY(double y) { return ymax - y * (ymax - ymin) / height;   }
+    /**
+     * Get the mapping from user coordinates to pixels given by the current
+     * scale and canvas size. The transform does not change when the scale
+     * or canvas size is changed later; call this method again to get the
+     * new one.
+     * @return the current pixel transform
+     */
+    public static PixelTransform getTransform() { return canvas.getTransform(); }
+
+    /**
+     * Get the number of primitives drawn since the counts were last reset,
+     * as in {@link DrawCanvas#drawnCount}.
+     * @return the number of primitives drawn
+     */
+    public static long drawnCount() { return canvas.drawnCount(); }
+
+    /**
+     * Get the number of primitives skipped because they were entirely off
+     * the canvas since the counts were last reset.
+     * @return the number of primitives culled
+     */
+    public static long culledCount() { return canvas.culledCount(); }
+
+    /**
+     * Set the counts of drawn and culled primitives to 0.
+     */
+    public static void resetCounts() { canvas.resetCounts(); }
+
+    /**
+     * Start recording into the given display list, as in
+     * {@link DrawCanvas#startRecording}: until <tt>stopRecording()</tt> is
+     * called, the drawing methods add primitives to the list instead of
+     * drawing, so nothing new is shown on screen. Changing the canvas size
+     * stops recording.
+     * @param list the display list to record into
+     * @throws RuntimeException if the list is not the same size as the canvas
+     */
+    public static void startRecording(DisplayList list) { canvas.startRecording(list); }
+
+    /**
+     * Stop recording, so that the drawing methods draw again.
+     * @return the display list that was recorded into, or null if standard
+     *         draw was not recording
+     */
+    public static DisplayList stopRecording() { return canvas.stopRecording(); }
 
 
     /**
@@ -287,9 +481,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param color the Color to make the background
      */
     public static void clear(Color color) {
-        offscreen.setColor(color);
-        offscreen.fillRect(0, 0, width, height);
-        offscreen.setColor(penColor);
+        canvas.clear(color);
         draw();
     }
 
@@ -297,7 +489,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * Get the current pen radius.
      * @return the pen radius
      */
-    public static double getPenRadius() { return penRadius; }
+    public static double getPenRadius() { return canvas.getPenRadius(); }
 
     /**
      * Set the pen size to the default (.002).
@@ -309,11 +501,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if r is negative
      */
     public static void setPenRadius(double r) {
-        if (r < 0) throw new RuntimeException("pen radius must be positive");
-        penRadius = r * DEFAULT_SIZE;
-        BasicStroke stroke = new BasicStroke((float) penRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
-        // BasicStroke stroke = new BasicStroke((float) penRadius);
-        offscreen.setStroke(stroke);
+        canvas.setPenRadius(r);
     }
 
     /**
@@ -321,7 +509,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * 
      * @return the current pen color
      */
-    public static Color getPenColor() { return penColor; }
+    public static Color getPenColor() { return canvas.getPenColor(); }
 
     /**
      * Set the pen color to the default color (black).
@@ -334,8 +522,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param color the Color to make the pen
      */
     public static void setPenColor(Color color) {
-        penColor = color;
-        offscreen.setColor(penColor);
+        canvas.setPenColor(color);
     }
 
     /**
@@ -343,7 +530,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * 
      * @return the current font
      */
-    public static Font getFont() { return font; }
+    public static Font getFont() { return canvas.getFont(); }
 
     /**
      * Set the font to the default font (sans serif, 16 point).
@@ -354,7 +541,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * Set the font to the given value.
      * @param f the font to make text
      */
-    public static void setFont(Font f) { font = f; }
+    public static void setFont(Font f) { canvas.setFont(f); }
 
 
    /*************************************************************************
@@ -369,18 +556,10 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param y1 the y-coordinate of the destination point
      */
     public static void line(double x0, double y0, double x1, double y1) {
-        offscreen.draw(new Line2D.Double(scaleX(x0), scaleY(y0), scaleX(x1), scaleY(y1)));
+        canvas.line(x0, y0, x1, y1);
         draw();
     }
 
-    /**
-     * Draw one pixel at (x, y).
-     * @param x the x-coordinate of the pixel
-     * @param y the y-coordinate of the pixel
-     */
-    private static void pixel(double x, double y) {
-        offscreen.fillRect((int) Math.round(scaleX(x)), (int) Math.round(scaleY(y)), 1, 1);
-    }
 
     /**
      * Draw a point at (x, y).
@@ -388,14 +567,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param y the y-coordinate of the point
      */
     public static void point(double x, double y) {
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double r = penRadius;
-        // double ws = factorX(2*r);
-        // double hs = factorY(2*r);
-        // if (ws <= 1 && hs <= 1) pixel(x, y);
-        if (r <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - r/2, ys - r/2, r, r));
+        canvas.point(x, y);
         draw();
     }
 
@@ -407,13 +579,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the radius of the circle is negative
      */
     public static void circle(double x, double y, double r) {
-        if (r < 0) throw new RuntimeException("circle radius can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*r);
-        double hs = factorY(2*r);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.circle(x, y, r);
         draw();
     }
 
@@ -425,13 +591,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the radius of the circle is negative
      */
     public static void filledCircle(double x, double y, double r) {
-        if (r < 0) throw new RuntimeException("circle radius can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*r);
-        double hs = factorY(2*r);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.filledCircle(x, y, r);
         draw();
     }
 
@@ -445,14 +605,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if either of the axes are negative
      */
     public static void ellipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
-        if (semiMajorAxis < 0) throw new RuntimeException("ellipse semimajor axis can't be negative");
-        if (semiMinorAxis < 0) throw new RuntimeException("ellipse semiminor axis can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*semiMajorAxis);
-        double hs = factorY(2*semiMinorAxis);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.ellipse(x, y, semiMajorAxis, semiMinorAxis);
         draw();
     }
 
@@ -465,14 +618,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if either of the axes are negative
      */
     public static void filledEllipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
-        if (semiMajorAxis < 0) throw new RuntimeException("ellipse semimajor axis can't be negative");
-        if (semiMinorAxis < 0) throw new RuntimeException("ellipse semiminor axis can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*semiMajorAxis);
-        double hs = factorY(2*semiMinorAxis);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.filledEllipse(x, y, semiMajorAxis, semiMinorAxis);
         draw();
     }
 
@@ -488,14 +634,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the radius of the circle is negative
      */
     public static void arc(double x, double y, double r, double angle1, double angle2) {
-        if (r < 0) throw new RuntimeException("arc radius can't be negative");
-        while (angle2 < angle1) angle2 += 360;
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*r);
-        double hs = factorY(2*r);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Arc2D.Double(xs - ws/2, ys - hs/2, ws, hs, angle1, angle2 - angle1, Arc2D.OPEN));
+        canvas.arc(x, y, r, angle1, angle2);
         draw();
     }
 
@@ -507,13 +646,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if r is negative
      */
     public static void square(double x, double y, double r) {
-        if (r < 0) throw new RuntimeException("square side length can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*r);
-        double hs = factorY(2*r);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.square(x, y, r);
         draw();
     }
 
@@ -525,13 +658,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if r is negative
      */
     public static void filledSquare(double x, double y, double r) {
-        if (r < 0) throw new RuntimeException("square side length can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*r);
-        double hs = factorY(2*r);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.filledSquare(x, y, r);
         draw();
     }
 
@@ -545,14 +672,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if halfWidth or halfHeight is negative
      */
     public static void rectangle(double x, double y, double halfWidth, double halfHeight) {
-        if (halfWidth  < 0) throw new RuntimeException("half width can't be negative");
-        if (halfHeight < 0) throw new RuntimeException("half height can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*halfWidth);
-        double hs = factorY(2*halfHeight);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.draw(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.rectangle(x, y, halfWidth, halfHeight);
         draw();
     }
 
@@ -565,14 +685,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if halfWidth or halfHeight is negative
      */
     public static void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
-        if (halfWidth  < 0) throw new RuntimeException("half width can't be negative");
-        if (halfHeight < 0) throw new RuntimeException("half height can't be negative");
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(2*halfWidth);
-        double hs = factorY(2*halfHeight);
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else offscreen.fill(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+        canvas.filledRectangle(x, y, halfWidth, halfHeight);
         draw();
     }
 
@@ -583,13 +696,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param y an array of all the y-coordindates of the polygon
      */
     public static void polygon(double[] x, double[] y) {
-        int N = x.length;
-        GeneralPath path = new GeneralPath();
-        path.moveTo((float) scaleX(x[0]), (float) scaleY(y[0]));
-        for (int i = 0; i < N; i++)
-            path.lineTo((float) scaleX(x[i]), (float) scaleY(y[i]));
-        path.closePath();
-        offscreen.draw(path);
+        canvas.polygon(x, y);
         draw();
     }
 
@@ -599,46 +706,215 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param y an array of all the y-coordindates of the polygon
      */
     public static void filledPolygon(double[] x, double[] y) {
-        int N = x.length;
-        GeneralPath path = new GeneralPath();
-        path.moveTo((float) scaleX(x[0]), (float) scaleY(y[0]));
-        for (int i = 0; i < N; i++)
-            path.lineTo((float) scaleX(x[i]), (float) scaleY(y[i]));
-        path.closePath();
-        offscreen.fill(path);
+        canvas.filledPolygon(x, y);
+        draw();
+    }
+
+
+   /*************************************************************************
+    *  Drawing many shapes at once.
+    *************************************************************************/
+
+    /**
+     * Draw a filled circle of radius r[i] centered on (x[i], y[i]) for each i.
+     * This is the same as calling <tt>filledCircle()</tt> for each circle, but
+     * much faster, and the circles are shown on screen all at once.
+     * @param x the x-coordinates of the centers of the circles
+     * @param y the y-coordinates of the centers of the circles
+     * @param r the radii of the circles
+     * @throws RuntimeException if the arrays have different lengths or
+     *         if the radius of a circle is negative
+     */
+    public static void filledCircles(double[] x, double[] y, double[] r) {
+        canvas.filledCircles(x, y, r);
+        draw();
+    }
+
+    /**
+     * Draw a filled circle of radius r centered on (x[i], y[i]) for each i.
+     * This is the same as calling <tt>filledCircle()</tt> for each circle, but
+     * much faster, and the circles are shown on screen all at once.
+     * @param x the x-coordinates of the centers of the circles
+     * @param y the y-coordinates of the centers of the circles
+     * @param r the radius of every circle
+     * @throws RuntimeException if the arrays have different lengths or
+     *         if the radius is negative
+     */
+    public static void filledCircles(double[] x, double[] y, double r) {
+        canvas.filledCircles(x, y, r);
+        draw();
+    }
+
+    /**
+     * Draw a line from (x0[i], y0[i]) to (x1[i], y1[i]) for each i.
+     * This is the same as calling <tt>line()</tt> for each line, but
+     * much faster, and the lines are shown on screen all at once.
+     * @param x0 the x-coordinates of the starting points
+     * @param y0 the y-coordinates of the starting points
+     * @param x1 the x-coordinates of the destination points
+     * @param y1 the y-coordinates of the destination points
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public static void lines(double[] x0, double[] y0, double[] x1, double[] y1) {
+        canvas.lines(x0, y0, x1, y1);
+        draw();
+    }
+
+    /**
+     * Draw a point at (x[i], y[i]) for each i.
+     * This is the same as calling <tt>point()</tt> for each point, but
+     * much faster, and the points are shown on screen all at once.
+     * @param x the x-coordinates of the points
+     * @param y the y-coordinates of the points
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public static void points(double[] x, double[] y) {
+        canvas.points(x, y);
+        draw();
+    }
+
+    /**
+     * Draw one pixel at (x[i], y[i]) for each i, whatever the pen radius.
+     * Each point is snapped to the nearest pixel.
+     * @param x the x-coordinates of the pixels
+     * @param y the y-coordinates of the pixels
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public static void pixels(double[] x, double[] y) {
+        canvas.pixels(x, y);
+        draw();
+    }
+
+    /**
+     * Draw one pixel at (x[i], y[i]) for each i, whatever the pen radius.
+     * The points are mapped to pixels using integer arithmetic only, which
+     * is faster for data that is already integer.
+     * @param x the x-coordinates of the pixels
+     * @param y the y-coordinates of the pixels
+     * @throws RuntimeException if the arrays have different lengths
+     */
+    public static void pixels(int[] x, int[] y) {
+        canvas.pixels(x, y);
         draw();
     }
 
 
 
    /*************************************************************************
-    *  Drawing images.
+    *  Direct access to pixels.
     *************************************************************************/
 
-    // get an image from the given filename
-    private static Image getImage(String filename) {
+    /**
+     * Get the color of the pixel in column x and row y, counting from the
+     * top left corner of the canvas.
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the color of the pixel as an ARGB int
+     * @throws IndexOutOfBoundsException if the pixel is not on the canvas
+     */
+    public static int getPixel(int x, int y) { return canvas.getPixel(x, y); }
 
-        // to read from file
-        ImageIcon icon = new ImageIcon(filename);
+    /**
+     * Set the pixel in column x and row y, counting from the top left corner
+     * of the canvas, to the given color. The pixel is replaced, not blended
+     * with the new color. Nothing is drawn if the pixel is not on the canvas.
+     * Setting many pixels one at a time is fastest with animation mode on.
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @param argb the color as an ARGB int, e.g., 0xFFFF0000 for opaque red
+     */
+    public static void setPixel(int x, int y, int argb) {
+        canvas.setPixel(x, y, argb);
+        draw();
+    }
 
-        // try to read from URL
-        if ((icon == null) || (icon.getImageLoadStatus() != MediaTracker.COMPLETE)) {
-            try {
-                URL url = new URL(filename);
-                icon = new ImageIcon(url);
-            } catch (Exception e) { /* not a url */ }
-        }
+    /**
+     * Set n pixels of row y, starting at column x and going right, to the
+     * given color. The pixels are replaced, not blended with the new color.
+     * @param x the column of the first pixel
+     * @param y the row of the pixels
+     * @param n the number of pixels
+     * @param argb the color as an ARGB int
+     */
+    public static void fillSpan(int x, int y, int n, int argb) {
+        canvas.fillSpan(x, y, n, argb);
+        draw();
+    }
 
-        // in case file is inside a .jar
-        if ((icon == null) || (icon.getImageLoadStatus() != MediaTracker.COMPLETE)) {
-            URL url = StdDraw.class.getResource(filename);
-            if (url == null) throw new RuntimeException("image " + filename + " not found");
-            icon = new ImageIcon(url);
-        }
+    /**
+     * Copy a w-by-h block of colors to the canvas with its top left corner
+     * at column x and row y. The color of pixel (x + i, y + j) is
+     * argb[offset + j * scansize + i]. The pixels are replaced, not blended
+     * with the new colors.
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param argb the colors as ARGB ints
+     * @param offset the index in argb of the top left corner of the block
+     * @param scansize the distance in argb from one row of the block to the next
+     * @throws IndexOutOfBoundsException if a color of the block that is
+     *         on the canvas is not in argb
+     */
+    public static void setPixels(int x, int y, int w, int h, int[] argb, int offset, int scansize) {
+        canvas.setPixels(x, y, w, h, argb, offset, scansize);
+        draw();
+    }
 
-        return icon.getImage();
+    /**
+     * Copy the colors of a w-by-h block of the canvas with its top left
+     * corner at column x and row y into an array. The color of pixel
+     * (x + i, y + j) is put in argb[offset + j * scansize + i].
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param argb the array to hold the colors as ARGB ints
+     * @param offset the index in argb of the top left corner of the block
+     * @param scansize the distance in argb from one row of the block to the next
+     * @throws IndexOutOfBoundsException if the block is not on the canvas
+     *         or does not fit in argb
+     */
+    public static void getPixels(int x, int y, int w, int h, int[] argb, int offset, int scansize) {
+        canvas.getPixels(x, y, w, h, argb, offset, scansize);
     }
 
+    /**
+     * Color a w-by-h block of the canvas, with its top left corner at column
+     * x and row y, by the given values, as in {@link DrawCanvas#colormap}.
+     * @param x the column of the top left corner of the block
+     * @param y the row of the top left corner of the block
+     * @param w the width of the block
+     * @param h the height of the block
+     * @param values the values, in row-major order
+     * @param min the value at the bottom of the range
+     * @param max the value at the top of the range
+     * @param palette the colors as ARGB ints, from min to max
+     * @throws RuntimeException if values has fewer than w * h elements,
+     *         if palette is empty, or if min is not less than max
+     */
+    public static void colormap(int x, int y, int w, int h, double[] values, double min, double max, int[] palette) {
+        canvas.colormap(x, y, w, h, values, min, max, palette);
+        draw();
+    }
+
+    /**
+     * Create a palette for <tt>colormap()</tt> of n colors that blend
+     * evenly from each of the given colors to the next.
+     * @param n the number of colors in the palette
+     * @param colors the colors to blend, from the bottom of the range to the top
+     * @return the palette as ARGB ints
+     * @throws RuntimeException if n is less than 1 or no colors are given
+     */
+    public static int[] palette(int n, Color... colors) { return DrawCanvas.palette(n, colors); }
+
+
+
+   /*************************************************************************
+    *  Drawing images.
+    *************************************************************************/
+
+
     /**
      * Draw picture (gif, jpg, or png) centered on (x, y).
      * @param x the center x-coordinate of the image
@@ -647,14 +923,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the image is corrupt
      */
     public static void picture(double x, double y, String s) {
-        Image image = getImage(s);
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        int ws = image.getWidth(null);
-        int hs = image.getHeight(null);
-        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
-
-        offscreen.drawImage(image, (int) Math.round(xs - ws/2.0), (int) Math.round(ys - hs/2.0), null);
+        canvas.picture(x, y, s);
         draw();
     }
 
@@ -668,17 +937,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the image is corrupt
      */
     public static void picture(double x, double y, String s, double degrees) {
-        Image image = getImage(s);
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        int ws = image.getWidth(null);
-        int hs = image.getHeight(null);
-        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
-
-        offscreen.rotate(Math.toRadians(-degrees), xs, ys);
-        offscreen.drawImage(image, (int) Math.round(xs - ws/2.0), (int) Math.round(ys - hs/2.0), null);
-        offscreen.rotate(Math.toRadians(+degrees), xs, ys);
-
+        canvas.picture(x, y, s, degrees);
         draw();
     }
 
@@ -693,21 +952,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the image is corrupt
      */
     public static void picture(double x, double y, String s, double w, double h) {
-        Image image = getImage(s);
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        if (w < 0) throw new RuntimeException("width is negative: " + w);
-        if (h < 0) throw new RuntimeException("height is negative: " + h);
-        double ws = factorX(w);
-        double hs = factorY(h);
-        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-        else {
-            offscreen.drawImage(image, (int) Math.round(xs - ws/2.0),
-                                       (int) Math.round(ys - hs/2.0),
-                                       (int) Math.round(ws),
-                                       (int) Math.round(hs), null);
-        }
+        canvas.picture(x, y, s, w, h);
         draw();
     }
 
@@ -724,24 +969,42 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @throws RuntimeException if the image is corrupt
      */
     public static void picture(double x, double y, String s, double w, double h, double degrees) {
-        Image image = getImage(s);
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        double ws = factorX(w);
-        double hs = factorY(h);
-        if (ws < 0 || hs < 0) throw new RuntimeException("image " + s + " is corrupt");
-        if (ws <= 1 && hs <= 1) pixel(x, y);
-
-        offscreen.rotate(Math.toRadians(-degrees), xs, ys);
-        offscreen.drawImage(image, (int) Math.round(xs - ws/2.0),
-                                   (int) Math.round(ys - hs/2.0),
-                                   (int) Math.round(ws),
-                                   (int) Math.round(hs), null);
-        offscreen.rotate(Math.toRadians(+degrees), xs, ys);
+        canvas.picture(x, y, s, w, h, degrees);
+        draw();
+    }
+
 
+    /**
+     * Draw the first count sprites from the given atlas in one batch. Sprite k
+     * is atlas sprite sprite[k] (or sprite 0 if sprite is null), centered on
+     * (x[k], y[k]) and rotated degrees[k] counterclockwise (or not rotated if
+     * degrees is null). This is much faster than calling <tt>picture()</tt>
+     * once for each sprite.
+     * @param atlas the atlas holding the sprites
+     * @param sprite the index in the atlas of each sprite, or null
+     * @param x the center x-coordinate of each sprite
+     * @param y the center y-coordinate of each sprite
+     * @param degrees the number of degrees to rotate each sprite, or null
+     * @param count the number of sprites to draw
+     * @throws IndexOutOfBoundsException if a sprite index is not in the atlas
+     */
+    public static void drawSprites(SpriteAtlas atlas, int[] sprite, double[] x, double[] y, double[] degrees, int count) {
+        canvas.drawSprites(atlas, sprite, x, y, degrees, count);
         draw();
     }
 
+    /**
+     * Draw one sprite from the given atlas for each element of x, in one batch.
+     * @param atlas the atlas holding the sprites
+     * @param sprite the index in the atlas of each sprite, or null
+     * @param x the center x-coordinate of each sprite
+     * @param y the center y-coordinate of each sprite
+     * @param degrees the number of degrees to rotate each sprite, or null
+     * @throws IndexOutOfBoundsException if a sprite index is not in the atlas
+     */
+    public static void drawSprites(SpriteAtlas atlas, int[] sprite, double[] x, double[] y, double[] degrees) {
+        drawSprites(atlas, sprite, x, y, degrees, x.length);
+    }
 
    /*************************************************************************
     *  Drawing text.
@@ -754,13 +1017,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param s the text
      */
     public static void text(double x, double y, String s) {
-        offscreen.setFont(font);
-        FontMetrics metrics = offscreen.getFontMetrics();
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        int ws = metrics.stringWidth(s);
-        int hs = metrics.getDescent();
-        offscreen.drawString(s, (float) (xs - ws/2.0), (float) (ys + hs));
+        canvas.text(x, y, s);
         draw();
     }
 
@@ -773,11 +1030,8 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param degrees is the number of degrees to rotate counterclockwise
      */
     public static void text(double x, double y, String s, double degrees) {
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        offscreen.rotate(Math.toRadians(-degrees), xs, ys);
-        text(x, y, s);
-        offscreen.rotate(Math.toRadians(+degrees), xs, ys);
+        canvas.text(x, y, s, degrees);
+        draw();
     }
 
 
@@ -788,12 +1042,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param s the text
      */
     public static void textLeft(double x, double y, String s) {
-        offscreen.setFont(font);
-        FontMetrics metrics = offscreen.getFontMetrics();
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        int hs = metrics.getDescent();
-        offscreen.drawString(s, (float) (xs), (float) (ys + hs));
+        canvas.textLeft(x, y, s);
         show();
     }
 
@@ -804,13 +1053,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param s the text
      */
     public static void textRight(double x, double y, String s) {
-        offscreen.setFont(font);
-        FontMetrics metrics = offscreen.getFontMetrics();
-        double xs = scaleX(x);
-        double ys = scaleY(y);
-        int ws = metrics.stringWidth(s);
-        int hs = metrics.getDescent();
-        offscreen.drawString(s, (float) (xs - ws), (float) (ys + hs));
+        canvas.textRight(x, y, s);
         show();
     }
 
@@ -848,11 +1091,24 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         draw();
     }
 
-    // draw onscreen if defer is false
+    // draw onscreen if defer is false, copying only the part of the
+    // canvas that changed since the last time
     private static void draw() {
-        if (defer) return;
-        onscreen.drawImage(offscreenImage, 0, 0, null);
-        frame.repaint();
+        if (defer || headless || frame == null) return;
+        Rectangle r = canvas.getDirtyRegion();
+        if (r.isEmpty()) return;
+        canvas.clearDirtyRegion();
+        if (strategy != null) {
+            present(r);
+        }
+        else if ((double) r.width * r.height > FULL_COPY_FRACTION * width * height) {
+            onscreen.drawImage(canvas.getImage(), 0, 0, null);
+            frame.repaint();
+        }
+        else {
+            copy(onscreen, canvas.getImage(), r);
+            label.repaint(r.x, r.y, r.width, r.height);
+        }
     }
 
 
@@ -865,34 +1121,41 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @param filename the name of the file with one of the required suffixes
      */
     public static void save(String filename) {
-        File file = new File(filename);
-        String suffix = filename.substring(filename.lastIndexOf('.') + 1);
+        canvas.save(filename);
+    }
 
-        // png files
-        if (suffix.toLowerCase().equals("png")) {
-            try { ImageIO.write(offscreenImage, suffix, file); }
-            catch (IOException e) { e.printStackTrace(); }
-        }
+    /**
+     * Save to file in the background - suffix must be png or jpg. The drawing
+     * is copied right away, so drawing can go on while the file is written.
+     * @param filename the name of the file with one of the required suffixes
+     * @return a future that completes when the file has been written
+     */
+    public static Future<File> saveAsync(String filename) {
+        return exporter().save(canvas.getImage(), filename);
+    }
 
-        // need to change from ARGB to RGB for jpeg
-        // reference: http://archives.java.sun.com/cgi-bin/wa?A2=ind0404&L=java2d-interest&D=0&P=2727
-        else if (suffix.toLowerCase().equals("jpg")) {
-            WritableRaster raster = offscreenImage.getRaster();
-            WritableRaster newRaster;
-            newRaster = raster.createWritableChild(0, 0, width, height, 0, 0, new int[] {0, 1, 2});
-            DirectColorModel cm = (DirectColorModel) offscreenImage.getColorModel();
-            DirectColorModel newCM = new DirectColorModel(cm.getPixelSize(),
-                                                          cm.getRedMask(),
-                                                          cm.getGreenMask(),
-                                                          cm.getBlueMask());
-            BufferedImage rgbBuffer = new BufferedImage(newCM, newRaster, false,  null);
-            try { ImageIO.write(rgbBuffer, suffix, file); }
-            catch (IOException e) { e.printStackTrace(); }
+    /**
+     * Save the drawing in the background as the next frame of a numbered
+     * sequence, such as the frames of an animation. The first frame saved
+     * with a pattern is frame 0; using a different pattern starts a new
+     * sequence.
+     * @param pattern the file name pattern, e.g., "frame%05d.png"
+     * @return a future that completes when the frame has been written
+     */
+    public static Future<File> saveFrame(String pattern) {
+        synchronized (StdDraw.class) {
+            if (sequence == null || !pattern.equals(sequencePattern)) {
+                sequence = exporter().sequence(pattern);
+                sequencePattern = pattern;
+            }
         }
+        return sequence.save(canvas.getImage());
+    }
 
-        else {
-            System.out.println("Invalid image file type: " + suffix);
-        }
+    // the exporter used by saveAsync() and saveFrame(), created when first needed
+    private static synchronized FrameExporter exporter() {
+        if (exporter == null) exporter = new FrameExporter();
+        return exporter;
     }
 
 
@@ -913,14 +1176,32 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     *  Mouse interactions.
     *************************************************************************/
 
+    /**
+     * Kind of mouse event: a mouse button was pressed.
+     */
+    public static final int MOUSE_PRESSED  = 0;
+
+    /**
+     * Kind of mouse event: a mouse button was released.
+     */
+    public static final int MOUSE_RELEASED = 1;
+
+    /**
+     * Kind of mouse event: the mouse moved with no button pressed.
+     */
+    public static final int MOUSE_MOVED    = 2;
+
+    /**
+     * Kind of mouse event: the mouse moved with a button pressed.
+     */
+    public static final int MOUSE_DRAGGED  = 3;
+
     /**
      * Is the mouse being pressed?
      * @return true or false
      */
     public static boolean mousePressed() {
-        synchronized (mouseLock) {
-            return mousePressed;
-        }
+        return mousePressed;
     }
 
     /**
@@ -928,9 +1209,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @return the value of the x-coordinate of the mouse
      */
     public static double mouseX() {
-        synchronized (mouseLock) {
-            return mouseX;
-        }
+        return mouseX;
     }
 
     /**
@@ -938,9 +1217,51 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @return the value of the y-coordinate of the mouse
      */
     public static double mouseY() {
-        synchronized (mouseLock) {
-            return mouseY;
-        }
+        return mouseY;
+    }
+
+    /**
+     * Remove up to max of the oldest mouse events that have not been removed
+     * yet, and store them in the given arrays: the kind of event k
+     * (<tt>MOUSE_PRESSED</tt>, <tt>MOUSE_RELEASED</tt>, <tt>MOUSE_MOVED</tt>, or
+     * <tt>MOUSE_DRAGGED</tt>) in kind[k], the value of <tt>System.nanoTime()</tt>
+     * when it was received in time[k], and the position of the mouse in
+     * (x[k], y[k]). Any of the arrays may be null if that part of the events
+     * is not needed. This method never blocks and creates no objects, so it
+     * can be called once per frame by an animation loop; only one thread
+     * should call it. No more events are removed than fit in the shortest
+     * of the arrays. Up to 4096 events are kept; later events are dropped
+     * until some are removed, and counted by <tt>droppedMouseEvents()</tt>.
+     * @param kind the kinds of the events, or null
+     * @param time the times of the events in nanoseconds, or null
+     * @param x the x-coordinates of the mouse, or null
+     * @param y the y-coordinates of the mouse, or null
+     * @param max the largest number of events to remove
+     * @return the number of events removed
+     * @throws RuntimeException if max is negative
+     */
+    public static int nextMouseEvents(int[] kind, long[] time, double[] x, double[] y, int max) {
+        return mouseEvents.drain(kind, time, x, y, max);
+    }
+
+    /**
+     * How many mouse events have been dropped because 4096 events were
+     * waiting to be removed by <tt>nextMouseEvents()</tt>? A program that
+     * sees this number grow should call <tt>nextMouseEvents()</tt> more
+     * often or remove more events at a time.
+     * @return the number of mouse events dropped so far
+     */
+    public static long droppedMouseEvents() {
+        return mouseEvents.dropped();
+    }
+
+    // record the position of the mouse and add an event to the stream
+    private static void mouseEvent(int kind, MouseEvent e) {
+        double x = canvas.userX(e.getX());
+        double y = canvas.userY(e.getY());
+        mouseX = x;
+        mouseY = y;
+        mouseEvents.offer(kind, System.nanoTime(), x, y);
     }
 
 
@@ -963,40 +1284,30 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * This method cannot be called directly.
      */
     public void mousePressed(MouseEvent e) {
-        synchronized (mouseLock) {
-            mouseX = StdDraw.userX(e.getX());
-            mouseY = StdDraw.userY(e.getY());
-            mousePressed = true;
-        }
+        mousePressed = true;
+        mouseEvent(MOUSE_PRESSED, e);
     }
 
     /**
      * This method cannot be called directly.
      */
     public void mouseReleased(MouseEvent e) {
-        synchronized (mouseLock) {
-            mousePressed = false;
-        }
+        mousePressed = false;
+        mouseEvents.offer(MOUSE_RELEASED, System.nanoTime(), mouseX, mouseY);
     }
 
     /**
      * This method cannot be called directly.
      */
     public void mouseDragged(MouseEvent e)  {
-        synchronized (mouseLock) {
-            mouseX = StdDraw.userX(e.getX());
-            mouseY = StdDraw.userY(e.getY());
-        }
+        mouseEvent(MOUSE_DRAGGED, e);
     }
 
     /**
      * This method cannot be called directly.
      */
     public void mouseMoved(MouseEvent e) {
-        synchronized (mouseLock) {
-            mouseX = StdDraw.userX(e.getX());
-            mouseY = StdDraw.userY(e.getY());
-        }
+        mouseEvent(MOUSE_MOVED, e);
     }
 
 
@@ -1009,22 +1320,20 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @return true if the user has typed a key, false otherwise
      */
     public static boolean hasNextKeyTyped() {
-        synchronized (keyLock) {
-            return !keysTyped.isEmpty();
-        }
+        return !keysTyped.isEmpty();
     }
 
     /**
      * What is the next key that was typed by the user? This method returns
      * a Unicode character corresponding to the key typed (such as 'a' or 'A').
      * It cannot identify action keys (such as F1
-     * and arrow keys) or modifier keys (such as control).
+     * and arrow keys) or modifier keys (such as control). Only one thread
+     * should read the typed keys.
      * @return the next Unicode key typed
+     * @throws java.util.NoSuchElementException if no key has been typed
      */
     public static char nextKeyTyped() {
-        synchronized (keyLock) {
-            return keysTyped.removeLast();
-        }
+        return (char) keysTyped.poll();
     }
 
     /**
@@ -1038,7 +1347,8 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * @return true if keycode is currently being pressed, false otherwise
      */
     public static boolean isKeyPressed(int keycode) {
-        return keysDown.contains(keycode);
+        if (keycode < 0 || keycode >= KEY_CODES) return false;
+        return (keysDown.get(keycode >>> 6) & (1L << keycode)) != 0;
     }
 
 
@@ -1046,31 +1356,65 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
      * This method cannot be called directly.
      */
     public void keyTyped(KeyEvent e) {
-        synchronized (keyLock) {
-            keysTyped.addFirst(e.getKeyChar());
-        }
+        keysTyped.offer(e.getKeyChar(), System.nanoTime(), 0, 0);
     }
 
     /**
      * This method cannot be called directly.
      */
     public void keyPressed(KeyEvent e) {
-        keysDown.add(e.getKeyCode());
+        int k = e.getKeyCode();
+        if (k < 0 || k >= KEY_CODES) return;
+        keysDown.set(k >>> 6, keysDown.get(k >>> 6) | (1L << k));
     }
 
     /**
      * This method cannot be called directly.
      */
     public void keyReleased(KeyEvent e) {
-        keysDown.remove(e.getKeyCode());
+        int k = e.getKeyCode();
+        if (k < 0 || k >= KEY_CODES) return;
+        keysDown.set(k >>> 6, keysDown.get(k >>> 6) & ~(1L << k));
     }
 
     public static void close() {
+        if (frame == null) return;
         frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
     }
 
 
-
-
-
+    /**
+     * Benchmark: animates a moving circle on 800-by-800 and 3840-by-2160
+     * canvases for three seconds each, first copying each frame to the
+     * screen and then using page flipping, and prints the frames per second.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("the frame rate benchmark needs a display");
+            return;
+        }
+        int[][] sizes = { { 800, 800 }, { 3840, 2160 } };
+        for (int[] size : sizes) {
+            for (boolean flip : new boolean[] { false, true }) {
+                setPageFlipping(flip);
+                setCanvasSize(size[0], size[1]);
+                setPenColor(BOOK_BLUE);
+                show(0);
+                int frames = 0;
+                long start = System.nanoTime();
+                while (System.nanoTime() - start < 3000000000L) {
+                    double t = 0.05 * frames;
+                    clear();
+                    filledCircle(0.5 + 0.4 * Math.cos(t), 0.5 + 0.4 * Math.sin(t), 0.05);
+                    show(0);
+                    frames++;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d-by-%d, %s: %.1f frames per second%n", size[0], size[1],
+                                  isPageFlipping() ? "page flipping" : "copy", frames / seconds);
+            }
+        }
+        System.exit(0);
+    }
 }